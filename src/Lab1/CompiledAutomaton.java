@@ -0,0 +1,187 @@
+package src.Lab1;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+// Dense-table form of a deterministic automaton.
+// States are numbered 0..n-1 and transitions are kept in one flat int[] indexed by state * symbolCount + symbol,
+// so checking a string costs one array lookup per character and allocates nothing.
+// Instances are immutable and a run only uses local variables, so one automaton can serve any number of threads
+public final class CompiledAutomaton {
+    // Sentinel target for missing transitions, once reached the input can no longer be accepted
+    public static final int DEAD = -1;
+    // Inputs per fork-join leaf, a multiple of 64 so every leaf owns whole words of the result bitset
+    private static final int BATCH_LEAF_SIZE = 64 * 16;
+
+    private final char[] alphabet;
+    // Maps an input character to its column in the table, -1 for characters outside the alphabet
+    private final int[] symbolIndex;
+    private final int[] table;
+    private final boolean[] accepting;
+    private final int start;
+    private final int stateCount;
+    private final int symbolCount;
+
+    public CompiledAutomaton(char[] alphabet, int[] table, boolean[] accepting, int start) {
+        this.stateCount = accepting.length;
+        this.symbolCount = alphabet.length;
+        if (table.length != stateCount * symbolCount) {
+            throw new IllegalArgumentException("Table size " + table.length + " does not match "
+                    + stateCount + " states x " + symbolCount + " symbols");
+        }
+        if (start < 0 || start >= stateCount) {
+            throw new IllegalArgumentException("Start state " + start + " is out of range");
+        }
+        for (int target : table) {
+            if (target != DEAD && (target < 0 || target >= stateCount)) {
+                throw new IllegalArgumentException("Transition target " + target + " is out of range");
+            }
+        }
+
+        this.alphabet = alphabet.clone();
+        this.table = table.clone();
+        this.accepting = accepting.clone();
+        this.start = start;
+
+        char max = 0;
+        for (char symbol : alphabet) {
+            max = (char) Math.max(max, symbol);
+        }
+        symbolIndex = new int[max + 1];
+        Arrays.fill(symbolIndex, -1);
+        for (int i = 0; i < alphabet.length; i++) {
+            if (symbolIndex[alphabet[i]] != -1) {
+                throw new IllegalArgumentException("Duplicate symbol '" + alphabet[i] + "' in alphabet");
+            }
+            symbolIndex[alphabet[i]] = i;
+        }
+    }
+
+    // Column of the given character, or -1 if it is not part of the alphabet
+    public int symbolOf(char symbol) {
+        return symbol < symbolIndex.length ? symbolIndex[symbol] : -1;
+    }
+
+    // Next state for a state and a symbol column, DEAD if there is no transition
+    public int next(int state, int symbol) {
+        return table[state * symbolCount + symbol];
+    }
+
+    // Next state for a state and an input character, DEAD if the character is unknown or has no transition
+    public int step(int state, char symbol) {
+        int column = symbolOf(symbol);
+        return column < 0 ? DEAD : table[state * symbolCount + column];
+    }
+
+    public boolean accepts(CharSequence input) {
+        int state = start;
+        for (int i = 0; i < input.length(); i++) {
+            char symbol = input.charAt(i);
+            int column = symbol < symbolIndex.length ? symbolIndex[symbol] : -1;
+            if (column < 0) {
+                return false;
+            }
+            state = table[state * symbolCount + column];
+            if (state == DEAD) {
+                return false;
+            }
+        }
+        return accepting[state];
+    }
+
+    // Checks every input on all cores, bit i of the result is set when inputs.get(i) is accepted.
+    // The list is copied to an array first, so the leaves index it in constant time whatever the list type
+    public BitSet acceptsAll(List<? extends CharSequence> inputs) {
+        return acceptsAll(inputs.toArray(new CharSequence[0]));
+    }
+
+    public BitSet acceptsAll(CharSequence[] inputs) {
+        long[] words = new long[(inputs.length + 63) / 64];
+        ForkJoinPool.commonPool().invoke(new BatchTask(inputs, 0, inputs.length, words));
+        return BitSet.valueOf(words);
+    }
+
+    // The stream is collected into an array first so results keep the encounter order of the inputs
+    public BitSet acceptsAll(Stream<? extends CharSequence> inputs) {
+        return acceptsAll(inputs.toArray(CharSequence[]::new));
+    }
+
+    // Checks inputs[from, to) and writes the answers into the shared words array
+    // Ranges are split on 64 input boundaries so no two tasks ever write the same word
+    private final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence[] inputs;
+        private final int from;
+        private final int to;
+        private final long[] words;
+
+        BatchTask(CharSequence[] inputs, int from, int to, long[] words) {
+            this.inputs = inputs;
+            this.from = from;
+            this.to = to;
+            this.words = words;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    if (accepts(inputs[i])) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+                return;
+            }
+            int middle = from + ((to - from) / 2 & -64);
+            invokeAll(new BatchTask(inputs, from, middle, words), new BatchTask(inputs, middle, to, words));
+        }
+    }
+
+    public boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    public char getSymbol(int column) {
+        return alphabet[column];
+    }
+
+    public char[] getAlphabet() {
+        return alphabet.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int state = 0; state < stateCount; state++) {
+            for (int column = 0; column < symbolCount; column++) {
+                int target = next(state, column);
+                if (target != DEAD) {
+                    result.append(state).append(" -").append(alphabet[column]).append("-> ").append(target).append('\n');
+                }
+            }
+        }
+        result.append("start: ").append(start).append(", accepting: ");
+        StringJoiner accepted = new StringJoiner(", ", "{", "}");
+        for (int state = 0; state < stateCount; state++) {
+            if (accepting[state]) {
+                accepted.add(Integer.toString(state));
+            }
+        }
+        return result.append(accepted).toString();
+    }
+}
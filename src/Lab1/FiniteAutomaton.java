@@ -1,28 +1,31 @@
 package src.Lab1;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
+// Immutable once constructed, the state of a run lives in local variables so one instance can be shared by threads
 public class FiniteAutomaton {
-    private Set<String> states;
-    private Set<Character> alphabet;
+    private final Set<String> states;
+    private final Set<Character> alphabet;
     // Pair state with input symbol and present a new string as a new state after transition
-    private Map<Map.Entry<String, Character>, String> transitions;
-    private String current_state;
+    private final Map<Map.Entry<String, Character>, String> transitions;
+    private final String start_state;
     // Allow last state/character
-    private Set<String> accepting_states;
+    private final Set<String> accepting_states;
 
     public FiniteAutomaton() {
-        states = new HashSet<>();
+        Set<String> states = new HashSet<>();
         states.add("S");
         states.add("B");
         states.add("D");
 
-        alphabet = new HashSet<>();
+        Set<Character> alphabet = new HashSet<>();
         alphabet.add('a');
         alphabet.add('b');
         alphabet.add('c');
 
-        transitions = new HashMap<>();
+        Map<Map.Entry<String, Character>, String> transitions = new HashMap<>();
         // Define transitions: state + input symbol -> new state
         // For ex. when state S and input a transition to B
         transitions.put(new AbstractMap.SimpleEntry<>("S", 'a'), "B");
@@ -33,36 +36,37 @@ public class FiniteAutomaton {
         transitions.put(new AbstractMap.SimpleEntry<>("D", 'b'), "S");
         transitions.put(new AbstractMap.SimpleEntry<>("D", 'c'), "c");
 
-        // Start at S
-        current_state = "S";
-
-        accepting_states = new HashSet<>();
+        Set<String> accepting_states = new HashSet<>();
         // Define accepting state(s)
         accepting_states.add("c");
+
+        this.states = Collections.unmodifiableSet(states);
+        this.alphabet = Collections.unmodifiableSet(alphabet);
+        this.transitions = Collections.unmodifiableMap(transitions);
+        // Start at S
+        this.start_state = "S";
+        this.accepting_states = Collections.unmodifiableSet(accepting_states);
     }
 
-    // Attempt a transition based on the current state and input symbol
-    public boolean transition(char symbol) {
-        // Pair the current state with the input symbol and looks into created map for transitions
-        Map.Entry<String, Character> key = new AbstractMap.SimpleEntry<>(current_state, symbol);
-        // Checks if there is a transition rule defined for the current state and input symbol
-        if (transitions.containsKey(key)) {
-            // Update current state based on transition with new state
-            current_state = transitions.get(key);
-            return true;
-        } else {
-            // Transition not possible
-            return false;
-        }
+    // Attempt a transition from the given state with the input symbol, returns the new state or null if not possible
+    public String transition(String state, char symbol) {
+        // Pair the state with the input symbol and looks into created map for transitions
+        return transitions.get(new AbstractMap.SimpleEntry<>(state, symbol));
     }
 
     // Checks if the given input string is accepted by the automaton
+    // Every call starts again from the start state
     public boolean isStringAccepted(String inputString) {
+        String current_state = start_state;
         for (int i = 0; i < inputString.length(); i++) {
             // Retrieves the current character (symbol) from the input string
             char symbol = inputString.charAt(i);
             // If symbol not in alphabet or transition fails, string is not accepted
-            if (!alphabet.contains(symbol) || !transition(symbol)) {
+            if (!alphabet.contains(symbol)) {
+                return false;
+            }
+            current_state = transition(current_state, symbol);
+            if (current_state == null) {
                 return false;
             }
         }
@@ -70,13 +74,66 @@ public class FiniteAutomaton {
         return accepting_states.contains(current_state);
     }
 
-    public static void main(String[] args) {
+    // Compiles the maps above into integer state IDs and a flat transition table
+    // The start state gets ID 0, the remaining states are numbered in sorted order
+    public CompiledAutomaton compile() {
+        // Transitions and accepting states may name states that are not listed in states (like "c")
+        Set<String> allStates = new TreeSet<>(states);
+        for (Map.Entry<Map.Entry<String, Character>, String> transition : transitions.entrySet()) {
+            allStates.add(transition.getKey().getKey());
+            allStates.add(transition.getValue());
+        }
+        allStates.addAll(accepting_states);
+        allStates.remove(start_state);
+
+        Map<String, Integer> stateIds = new HashMap<>();
+        stateIds.put(start_state, 0);
+        for (String state : allStates) {
+            stateIds.put(state, stateIds.size());
+        }
+
+        char[] symbols = new char[alphabet.size()];
+        int index = 0;
+        for (char symbol : new TreeSet<>(alphabet)) {
+            symbols[index++] = symbol;
+        }
+        Map<Character, Integer> symbolIds = new HashMap<>();
+        for (int i = 0; i < symbols.length; i++) {
+            symbolIds.put(symbols[i], i);
+        }
+
+        int[] table = new int[stateIds.size() * symbols.length];
+        Arrays.fill(table, CompiledAutomaton.DEAD);
+        for (Map.Entry<Map.Entry<String, Character>, String> transition : transitions.entrySet()) {
+            Integer symbol = symbolIds.get(transition.getKey().getValue());
+            if (symbol == null) {
+                // A transition over a symbol outside the alphabet can never fire
+                continue;
+            }
+            int from = stateIds.get(transition.getKey().getKey());
+            table[from * symbols.length + symbol] = stateIds.get(transition.getValue());
+        }
+
+        boolean[] accepting = new boolean[stateIds.size()];
+        for (String state : accepting_states) {
+            accepting[stateIds.get(state)] = true;
+        }
+        return new CompiledAutomaton(symbols, table, accepting, 0);
+    }
+
+    public static void main(String[] args) throws IOException {
         FiniteAutomaton fa = new FiniteAutomaton();
+        if (args.length > 0) {
+            // Check every line of the given file, the file is memory-mapped instead of read into Strings
+            StreamingMatcher matcher = new StreamingMatcher(fa.compile());
+            System.out.println(matcher.match(Path.of(args[0]), null));
+            return;
+        }
         try (Scanner scanner = new Scanner(System.in)) {
             System.out.println("Enter a string to check:");
             String inputString = scanner.nextLine();
 
-            boolean isValid = fa.isStringAccepted(inputString);
+            boolean isValid = fa.compile().accepts(inputString);
             if (isValid) {
                 System.out.println("The string is accepted by the automaton.");
             } else {
@@ -1,16 +1,42 @@
 package src.Lab1;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Grammar {
+    // Strings generated per shard by writeStrings, each shard gets its own random stream
+    private static final int SHARD_SIZE = 1 << 14;
 
-class Grammar {
     // Rules that associate non-terminal symbol keys with production rules values
     private final Map<Character, List<String>> rules;
-    private final Random random;
+    // The same rules indexed by symbol, productions[symbol] is null for terminals
+    private final char[][][] productions;
+    private final SplittableRandom random;
+    // Built on the first length-targeted request and rebuilt when a longer length is asked for
+    private LengthTables lengthTables;
 
     public Grammar() {
+        this(new SplittableRandom());
+    }
+
+    // Same seed, same sequence of generated strings
+    public Grammar(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private Grammar(SplittableRandom random) {
         this.rules = new HashMap<>();
-        this.random = new Random();
+        this.random = random;
         initializeRules();
+        this.productions = indexRules(rules);
     }
 
     private void initializeRules() {
@@ -21,34 +47,152 @@ class Grammar {
         rules.put('D', List.of("aD", "bS", "c"));
     }
 
-    public String generateString() {
-        return expand('S');
+    private static char[][][] indexRules(Map<Character, List<String>> rules) {
+        char max = 0;
+        for (char symbol : rules.keySet()) {
+            max = (char) Math.max(max, symbol);
+        }
+        char[][][] productions = new char[max + 1][][];
+        for (Map.Entry<Character, List<String>> rule : rules.entrySet()) {
+            productions[rule.getKey()] = rule.getValue().stream().map(String::toCharArray).toArray(char[][]::new);
+        }
+        return productions;
     }
 
-    private String expand(char symbol) {
-        // Stringbuilder used for better appending characters in a loop
+    public String generateString() {
         StringBuilder result = new StringBuilder();
-        // Check if the symbol is a key ('S', 'B', 'D')
-        if (rules.containsKey(symbol)) {
-            // Take the possible rules and store them in a list in order to retrieve one randomly
-            List<String> possibleProductions = rules.get(symbol);
-            String production = possibleProductions.get(random.nextInt(possibleProductions.size()));
-            for (int i = 0; i < production.length(); i++) {
-                // If non-terminal will further expend it
+        new Expander().expand('S', random, result);
+        return result.toString();
+    }
+
+    // The rules are right-linear, so src.Lab2.RegularGrammarCompiler can compile them into an automaton
+    public Map<Character, List<String>> getRules() {
+        return Collections.unmodifiableMap(rules);
+    }
+
+    public char getStartSymbol() {
+        return 'S';
+    }
+
+    // Number of strings of exactly the given length the grammar can generate
+    public BigInteger countStrings(int length) {
+        return lengthTables(length).count('S', length);
+    }
+
+    // Generates a string of exactly the given length, all such strings being equally likely
+    public String generateString(int length) {
+        StringBuilder result = new StringBuilder(length);
+        lengthTables(length).sample('S', length, random, result);
+        return result.toString();
+    }
+
+    private LengthTables lengthTables(int length) {
+        if (lengthTables == null || lengthTables.getMaxLength() < length) {
+            // Grow geometrically so asking for increasing lengths does not rebuild the tables every time
+            int maxLength = lengthTables == null ? length : Math.max(length, 2 * lengthTables.getMaxLength());
+            lengthTables = new LengthTables(productions, maxLength);
+        }
+        return lengthTables;
+    }
+
+    // Writes count strings to out, one per line, reusing a single buffer for all of them
+    public void writeStrings(Appendable out, long count, SplittableRandom random) throws IOException {
+        Expander expander = new Expander();
+        StringBuilder buffer = new StringBuilder();
+        for (long i = 0; i < count; i++) {
+            buffer.setLength(0);
+            expander.expand('S', random, buffer);
+            out.append(buffer).append('\n');
+        }
+    }
+
+    // Writes count strings to out as UTF-8 lines, generated on the given number of threads.
+    // The strings are cut into shards whose random streams are split from the seed in shard order,
+    // so the output only depends on the seed and never on the number of threads
+    public void writeStrings(OutputStream out, long count, long seed, int threads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            SplittableRandom root = new SplittableRandom(seed);
+            // Finished shards are written in order, at most 2 shards per thread are in flight
+            Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+            for (long first = 0; first < count; first += SHARD_SIZE) {
+                int shardSize = (int) Math.min(SHARD_SIZE, count - first);
+                SplittableRandom shardRandom = root.split();
+                inFlight.add(executor.submit(() -> generateShard(shardSize, shardRandom)));
+                if (inFlight.size() >= 2 * threads) {
+                    out.write(await(inFlight.poll()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                out.write(await(inFlight.poll()));
+            }
+            out.flush();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private byte[] generateShard(int size, SplittableRandom random) {
+        StringBuilder shard = new StringBuilder();
+        Expander expander = new Expander();
+        for (int i = 0; i < size; i++) {
+            expander.expand('S', random, shard);
+            shard.append('\n');
+        }
+        return shard.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] await(Future<byte[]> shard) throws IOException {
+        try {
+            return shard.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating strings", e);
+        } catch (ExecutionException e) {
+            throw new IOException("String generation failed", e.getCause());
+        }
+    }
+
+    // Expands symbols with an explicit stack instead of recursion, so long derivations (like repeated bB)
+    // cannot overflow the call stack and nothing is allocated per symbol. Not shared between threads
+    private final class Expander {
+        private char[] stack = new char[64];
+
+        void expand(char startSymbol, SplittableRandom random, StringBuilder result) {
+            int top = 0;
+            stack[top++] = startSymbol;
+            while (top > 0) {
+                char symbol = stack[--top];
                 // If terminal not found in rules, it appends it to the result
-                char nextSymbol = production.charAt(i);
-                result.append(expand(nextSymbol));
+                char[][] possibleProductions = symbol < productions.length ? productions[symbol] : null;
+                if (possibleProductions == null) {
+                    result.append(symbol);
+                    continue;
+                }
+                char[] production = possibleProductions[random.nextInt(possibleProductions.length)];
+                if (top + production.length > stack.length) {
+                    stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + production.length));
+                }
+                // Pushed in reverse so the leftmost symbol is expanded first
+                for (int i = production.length - 1; i >= 0; i--) {
+                    stack[top++] = production[i];
+                }
             }
-        } else {
-            result.append(symbol);
         }
-        return result.toString();
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            // Bulk mode: <count> [seed] [threads], strings go to standard output one per line
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            new Grammar(seed).writeStrings(new BufferedOutputStream(System.out, 1 << 16), Long.parseLong(args[0]), seed, threads);
+            return;
+        }
         Grammar grammar = new Grammar();
         for (int i = 0; i < 5; i++) {
             System.out.println(grammar.generateString());
         }
+        System.out.println("Strings of length 20: " + grammar.countStrings(20) + ", for example " + grammar.generateString(20));
     }
 }
@@ -0,0 +1,259 @@
+package src.Lab1;
+
+import java.math.BigInteger;
+import java.util.*;
+
+// Counts, for every non-terminal, how many derivations produce a string of each length up to a limit,
+// and uses those counts to sample a string of an exact length uniformly at random.
+// For an unambiguous grammar (like the one in Grammar) derivations and strings are the same thing.
+// Productions must not be empty or a single non-terminal, so every derivation step makes the string longer
+final class LengthTables {
+    private final char[][][] productions;
+    private final int maxLength;
+    // counts[symbol][n] = derivations of length n from the non-terminal symbol
+    private final BigInteger[][] counts;
+    // suffixCounts[symbol][p][i][n] = ways the symbols p[i..] of production p derive a string of length n, for i >= 1
+    private final BigInteger[][][][] suffixCounts;
+    // ends[symbol][n][p] = derivations of length n from the symbol that start with a production up to p
+    private final BigInteger[][][] ends;
+    // topEnds[symbol][n][p] = the top 62 bits of ends[symbol][n][p], all shifted right by the same amount.
+    // A sampling step usually decides with these and one random long instead of arithmetic on numbers with O(n) bits
+    private final long[][][] topEnds;
+
+    LengthTables(char[][][] productions, int maxLength) {
+        this.productions = productions;
+        this.maxLength = maxLength;
+        this.counts = new BigInteger[productions.length][];
+        this.suffixCounts = new BigInteger[productions.length][][][];
+        this.ends = new BigInteger[productions.length][][];
+        this.topEnds = new long[productions.length][][];
+
+        for (int symbol = 0; symbol < productions.length; symbol++) {
+            if (productions[symbol] == null) {
+                continue;
+            }
+            counts[symbol] = filled(maxLength + 1);
+            ends[symbol] = new BigInteger[maxLength + 1][];
+            topEnds[symbol] = new long[maxLength + 1][];
+            suffixCounts[symbol] = new BigInteger[productions[symbol].length][][];
+            for (int p = 0; p < productions[symbol].length; p++) {
+                char[] production = productions[symbol][p];
+                if (production.length == 0 || (production.length == 1 && isNonTerminal(production[0]))) {
+                    throw new IllegalArgumentException("Length counting needs productions that always grow the string, "
+                            + (char) symbol + " -> " + (production.length == 0 ? "ε" : new String(production)) + " does not");
+                }
+                suffixCounts[symbol][p] = new BigInteger[production.length][];
+                for (int i = 1; i < production.length; i++) {
+                    suffixCounts[symbol][p][i] = filled(maxLength + 1);
+                }
+            }
+        }
+
+        // Every production has at least 2 symbols or is a single terminal, so length n only depends on shorter lengths
+        // once the counts for n itself are known for the last symbol of each suffix
+        for (int n = 1; n <= maxLength; n++) {
+            for (int symbol = 0; symbol < productions.length; symbol++) {
+                if (productions[symbol] == null) {
+                    continue;
+                }
+                BigInteger[] cumulative = new BigInteger[productions[symbol].length];
+                BigInteger total = BigInteger.ZERO;
+                for (int p = 0; p < cumulative.length; p++) {
+                    total = total.add(ways(symbol, p, 0, n));
+                    cumulative[p] = total;
+                }
+                counts[symbol][n] = total;
+                ends[symbol][n] = cumulative;
+                topEnds[symbol][n] = topBits(cumulative, total);
+            }
+            for (int symbol = 0; symbol < productions.length; symbol++) {
+                if (productions[symbol] == null) {
+                    continue;
+                }
+                for (int p = 0; p < productions[symbol].length; p++) {
+                    for (int i = productions[symbol][p].length - 1; i >= 1; i--) {
+                        suffixCounts[symbol][p][i][n] = ways(symbol, p, i, n);
+                    }
+                }
+            }
+        }
+    }
+
+    int getMaxLength() {
+        return maxLength;
+    }
+
+    // Derivations of exactly the given length from the symbol
+    BigInteger count(char symbol, int length) {
+        if (length < 0 || length > maxLength) {
+            throw new IllegalArgumentException("Length " + length + " is outside 0.." + maxLength);
+        }
+        if (!isNonTerminal(symbol)) {
+            return length == 1 ? BigInteger.ONE : BigInteger.ZERO;
+        }
+        return counts[symbol][length];
+    }
+
+    // Appends a string of exactly the given length derived from the symbol, every such derivation being equally likely
+    void sample(char startSymbol, int length, SplittableRandom random, StringBuilder result) {
+        if (count(startSymbol, length).signum() == 0) {
+            throw new IllegalArgumentException("No string of length " + length + " can be derived from " + startSymbol);
+        }
+        // Pending (symbol, length) pairs, expanded left to right with an explicit stack
+        char[] symbols = new char[16];
+        int[] lengths = new int[16];
+        int top = 0;
+        symbols[top] = startSymbol;
+        lengths[top++] = length;
+        while (top > 0) {
+            char symbol = symbols[--top];
+            int remaining = lengths[top];
+            if (!isNonTerminal(symbol)) {
+                result.append(symbol);
+                continue;
+            }
+
+            // Split the length over the symbols of the production, pushed in reverse so the leftmost comes out first
+            int p = pickProduction(symbol, remaining, random);
+            char[] production = productions[symbol][p];
+            int[] split = new int[production.length];
+            for (int i = 0; i < production.length - 1; i++) {
+                split[i] = pickLength(symbol, p, i, remaining, random);
+                remaining -= split[i];
+            }
+            split[production.length - 1] = remaining;
+            if (top + production.length > symbols.length) {
+                symbols = Arrays.copyOf(symbols, Math.max(symbols.length * 2, top + production.length));
+                lengths = Arrays.copyOf(lengths, symbols.length);
+            }
+            for (int i = production.length - 1; i >= 0; i--) {
+                symbols[top] = production[i];
+                lengths[top++] = split[i];
+            }
+        }
+    }
+
+    // Length of production[i] when production[i..] has to derive n characters
+    private int pickLength(int symbol, int p, int i, int n, SplittableRandom random) {
+        char first = productions[symbol][p][i];
+        if (!isNonTerminal(first)) {
+            return 1;
+        }
+        BigInteger pick = randomBelow(ways(symbol, p, i, n), random);
+        for (int length = 1; ; length++) {
+            BigInteger weight = counts[first][length].multiply(suffix(symbol, p, i + 1, n - length));
+            if (pick.compareTo(weight) < 0) {
+                return length;
+            }
+            pick = pick.subtract(weight);
+        }
+    }
+
+    // Ways production[i..] derives exactly n characters, from counts of lengths that are already known
+    private BigInteger ways(int symbol, int p, int i, int n) {
+        char[] production = productions[symbol][p];
+        char first = production[i];
+        if (i == production.length - 1) {
+            return count(first, n);
+        }
+        if (!isNonTerminal(first)) {
+            return suffix(symbol, p, i + 1, n - 1);
+        }
+        BigInteger total = BigInteger.ZERO;
+        for (int length = 1; length < n; length++) {
+            if (counts[first][length].signum() != 0) {
+                total = total.add(counts[first][length].multiply(suffix(symbol, p, i + 1, n - length)));
+            }
+        }
+        return total;
+    }
+
+    // Production for symbol when it has to derive n characters, in proportion to the derivations of that length
+    // it allows. This is exact: it draws a uniform value below the count and finds the production whose range holds it.
+    // Only the top bits of the value are drawn at first, the low bits are needed when those leave it on a boundary
+    private int pickProduction(int symbol, int n, SplittableRandom random) {
+        BigInteger[] cumulative = ends[symbol][n];
+        long[] tops = topEnds[symbol][n];
+        int last = tops.length - 1;
+        int shift = shift(cumulative[last]);
+        if (shift == 0) {
+            // The counts fit in a long, tops are the exact bounds
+            long pick = random.nextLong(tops[last]);
+            int p = 0;
+            while (pick >= tops[p]) {
+                p++;
+            }
+            return p;
+        }
+        while (true) {
+            long top = random.nextLong(1L << 62);
+            int p = 0;
+            while (p <= last && top >= tops[p]) {
+                p++;
+            }
+            // Every value with these top bits lies in [top << shift, (top + 1) << shift). Unless top equals the top bits
+            // of the bound below it, that range is inside the range of production p, or above the count when p is past
+            // the last production
+            if (p == 0 || top != tops[p - 1]) {
+                if (p <= last) {
+                    return p;
+                }
+                continue;
+            }
+            BigInteger pick = BigInteger.valueOf(top).shiftLeft(shift).add(randomBelow(BigInteger.ONE.shiftLeft(shift), random));
+            if (pick.compareTo(cumulative[last]) < 0) {
+                p = 0;
+                while (pick.compareTo(cumulative[p]) >= 0) {
+                    p++;
+                }
+                return p;
+            }
+        }
+    }
+
+    // The bounds shifted so the total keeps 62 bits, the total is at least half of the range a random long covers
+    private static long[] topBits(BigInteger[] cumulative, BigInteger total) {
+        int shift = shift(total);
+        long[] tops = new long[cumulative.length];
+        for (int p = 0; p < cumulative.length; p++) {
+            tops[p] = cumulative[p].shiftRight(shift).longValue();
+        }
+        return tops;
+    }
+
+    private static int shift(BigInteger total) {
+        return Math.max(0, total.bitLength() - 62);
+    }
+
+    private BigInteger suffix(int symbol, int p, int i, int n) {
+        return n <= 0 ? BigInteger.ZERO : suffixCounts[symbol][p][i][n];
+    }
+
+    private boolean isNonTerminal(char symbol) {
+        return symbol < productions.length && productions[symbol] != null;
+    }
+
+    // Uniform value in [0, bound) by rejection over bound.bitLength() random bits
+    private static BigInteger randomBelow(BigInteger bound, SplittableRandom random) {
+        int bits = bound.bitLength();
+        byte[] bytes = new byte[(bits + 7) / 8 + 1];
+        while (true) {
+            for (int i = 1; i < bytes.length; i++) {
+                bytes[i] = (byte) random.nextInt(256);
+            }
+            // Keep only the low bits so at least half of the draws are below the bound
+            int extra = (bytes.length - 1) * 8 - bits;
+            bytes[1] &= (byte) (0xFF >>> extra);
+            BigInteger value = new BigInteger(bytes);
+            if (value.compareTo(bound) < 0) {
+                return value;
+            }
+        }
+    }
+
+    private static BigInteger[] filled(int size) {
+        BigInteger[] values = new BigInteger[size];
+        Arrays.fill(values, BigInteger.ZERO);
+        return values;
+    }
+}
@@ -0,0 +1,209 @@
+package src.Lab1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// A compiled automaton read straight from a memory-mapped file, nothing is copied onto the heap.
+// Opening only checks the header and that the sections add up to the file size, so it touches one page whatever
+// the size of the tables. verify() checks every entry as well, for files that may be corrupt: without it a bad entry
+// makes accepts() throw an IndexOutOfBoundsException or give a wrong answer.
+// Several processes mapping the same file share its pages through the OS page cache.
+//
+// File layout, all values are little-endian ints:
+//   magic "LFAD", version, stateCount, symbolCount, start, lookupLength,
+//   lookup[lookupLength]          column of each character code below lookupLength, -1 if not in the alphabet
+//   alphabet[symbolCount]         the character of each column
+//   accepting[(stateCount + 31) / 32]  bitmap of accepting states
+//   table[stateCount * symbolCount]    transition targets, -1 (DEAD) when missing
+public final class MappedAutomaton {
+    private static final int MAGIC = 'L' | 'F' << 8 | 'A' << 16 | 'D' << 24;
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 6;
+
+    private final IntBuffer lookup;
+    private final IntBuffer alphabet;
+    private final IntBuffer accepting;
+    private final IntBuffer table;
+    private final int stateCount;
+    private final int symbolCount;
+    private final int start;
+
+    private MappedAutomaton(ByteBuffer bytes) throws IOException {
+        if (bytes.limit() % 4 != 0) {
+            throw new IOException("Corrupt automaton file, its length " + bytes.limit() + " is not a multiple of 4");
+        }
+        IntBuffer data = bytes.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        if (data.limit() < HEADER_INTS || data.get(0) != MAGIC) {
+            throw new IOException("Not a compiled automaton file");
+        }
+        if (data.get(1) != VERSION) {
+            throw new IOException("Unsupported automaton file version " + data.get(1) + ", expected " + VERSION);
+        }
+        stateCount = data.get(2);
+        symbolCount = data.get(3);
+        start = data.get(4);
+        int lookupLength = data.get(5);
+        if (stateCount <= 0 || symbolCount < 0 || lookupLength < 0 || lookupLength > Character.MAX_VALUE + 1) {
+            throw new IOException("Corrupt automaton file header: " + stateCount + " states, " + symbolCount
+                    + " symbols, lookup length " + lookupLength);
+        }
+        if (start < 0 || start >= stateCount) {
+            throw new IOException("Corrupt automaton file, start state " + start + " is out of range");
+        }
+        // In long arithmetic, so huge counts cannot overflow into a size that happens to match
+        long acceptingLength = (stateCount + 31L) >>> 5;
+        long tableLength = (long) stateCount * symbolCount;
+        long expected = HEADER_INTS + lookupLength + symbolCount + acceptingLength + tableLength;
+        if (data.limit() != expected) {
+            throw new IOException("Truncated automaton file, expected " + expected * 4 + " bytes but found " + bytes.limit());
+        }
+        lookup = section(data, HEADER_INTS, lookupLength);
+        alphabet = section(data, HEADER_INTS + lookupLength, symbolCount);
+        accepting = section(data, HEADER_INTS + lookupLength + symbolCount, (int) acceptingLength);
+        table = section(data, HEADER_INTS + lookupLength + symbolCount + (int) acceptingLength, (int) tableLength);
+    }
+
+    // Reads every table entry: columns, symbols and transition targets must be in range, and the lookup must map
+    // each alphabet symbol to its own column and nothing else to a column. Returns this automaton
+    public MappedAutomaton verify() throws IOException {
+        checkRange(lookup, -1, symbolCount, "column");
+        checkRange(alphabet, 0, lookup.limit(), "symbol");
+        checkRange(table, CompiledAutomaton.DEAD, stateCount, "transition target");
+        for (int column = 0; column < symbolCount; column++) {
+            if (lookup.get(alphabet.get(column)) != column) {
+                throw new IOException("Corrupt automaton file, symbol " + alphabet.get(column) + " of column " + column
+                        + " is looked up as column " + lookup.get(alphabet.get(column)));
+            }
+        }
+        for (int c = 0; c < lookup.limit(); c++) {
+            int column = lookup.get(c);
+            if (column >= 0 && alphabet.get(column) != c) {
+                throw new IOException("Corrupt automaton file, character " + c + " is looked up as column " + column
+                        + " of symbol " + alphabet.get(column));
+            }
+        }
+        return this;
+    }
+
+    // Every value of the section must lie in [low, high)
+    private static void checkRange(IntBuffer section, int low, int high, String what) throws IOException {
+        for (int i = 0; i < section.limit(); i++) {
+            int value = section.get(i);
+            if (value < low || value >= high) {
+                throw new IOException("Corrupt automaton file, " + what + " " + value + " at index " + i + " is out of range");
+            }
+        }
+    }
+
+    private static IntBuffer section(IntBuffer data, int offset, int length) {
+        return data.duplicate().position(offset).limit(offset + length).slice();
+    }
+
+    // Maps the file read-only, the mapping stays valid after the channel is closed. Call verify() on the result
+    // when the file may be corrupt
+    public static MappedAutomaton open(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (file.size() > Integer.MAX_VALUE) {
+                throw new IOException("Automaton file too large: " + file.size() + " bytes");
+            }
+            MappedByteBuffer mapped = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            return new MappedAutomaton(mapped);
+        }
+    }
+
+    public static void write(CompiledAutomaton automaton, Path path) throws IOException {
+        int stateCount = automaton.getStateCount();
+        int symbolCount = automaton.getSymbolCount();
+        int lookupLength = 0;
+        for (char symbol : automaton.getAlphabet()) {
+            lookupLength = Math.max(lookupLength, symbol + 1);
+        }
+        int acceptingLength = (stateCount + 31) >>> 5;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (HEADER_INTS + lookupLength + symbolCount + acceptingLength + stateCount * symbolCount))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(stateCount).putInt(symbolCount).putInt(automaton.getStart()).putInt(lookupLength);
+        for (int c = 0; c < lookupLength; c++) {
+            buffer.putInt(automaton.symbolOf((char) c));
+        }
+        for (int column = 0; column < symbolCount; column++) {
+            buffer.putInt(automaton.getSymbol(column));
+        }
+        int[] acceptingBits = new int[acceptingLength];
+        for (int state = 0; state < stateCount; state++) {
+            if (automaton.isAccepting(state)) {
+                acceptingBits[state >>> 5] |= 1 << state;
+            }
+        }
+        for (int bits : acceptingBits) {
+            buffer.putInt(bits);
+        }
+        for (int state = 0; state < stateCount; state++) {
+            for (int column = 0; column < symbolCount; column++) {
+                buffer.putInt(automaton.next(state, column));
+            }
+        }
+        buffer.flip();
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                file.write(buffer);
+            }
+        }
+    }
+
+    // Only absolute reads are used, so one instance can be shared between threads
+    public boolean accepts(CharSequence input) {
+        int state = start;
+        int lookupLength = lookup.limit();
+        for (int i = 0; i < input.length(); i++) {
+            char symbol = input.charAt(i);
+            int column = symbol < lookupLength ? lookup.get(symbol) : -1;
+            if (column < 0) {
+                return false;
+            }
+            state = table.get(state * symbolCount + column);
+            if (state == CompiledAutomaton.DEAD) {
+                return false;
+            }
+        }
+        return isAccepting(state);
+    }
+
+    public boolean isAccepting(int state) {
+        return (accepting.get(state >>> 5) & 1 << state) != 0;
+    }
+
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    // Copies the mapped tables onto the heap
+    public CompiledAutomaton toCompiledAutomaton() {
+        char[] symbols = new char[symbolCount];
+        for (int column = 0; column < symbolCount; column++) {
+            symbols[column] = (char) alphabet.get(column);
+        }
+        int[] transitions = new int[stateCount * symbolCount];
+        table.get(0, transitions);
+        boolean[] acceptingStates = new boolean[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            acceptingStates[state] = isAccepting(state);
+        }
+        return new CompiledAutomaton(symbols, transitions, acceptingStates, start);
+    }
+}
@@ -0,0 +1,178 @@
+package src.Lab1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Checks newline-delimited records against a compiled automaton straight from bytes.
+// Input is never decoded into Strings: every byte (read as ISO-8859-1) goes directly into the transition table,
+// so the heap only ever holds one fixed-size read buffer, or nothing at all for memory-mapped files
+public final class StreamingMatcher {
+    // Size of the direct buffer used to drain a ReadableByteChannel
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    // Largest region mapped at once, FileChannel.map is limited to Integer.MAX_VALUE bytes
+    private static final long MAP_WINDOW_SIZE = 1L << 30;
+
+    // Called once per record with its zero-based index and whether the automaton accepted it
+    public interface RecordListener {
+        void onRecord(long record, boolean accepted);
+    }
+
+    // Totals of a finished run
+    public static final class Result {
+        private final long records;
+        private final long accepted;
+        private final long bytes;
+        private final long nanos;
+
+        Result(long records, long accepted, long bytes, long nanos) {
+            this.records = records;
+            this.accepted = accepted;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public long getAccepted() {
+            return accepted;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public double megabytesPerSecond() {
+            return nanos == 0 ? 0 : (bytes / (1024.0 * 1024.0)) / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d records, %d accepted, %d rejected, %d bytes in %.3f ms (%.1f MB/s)",
+                    records, accepted, records - accepted, bytes, nanos / 1e6, megabytesPerSecond());
+        }
+    }
+
+    private final CompiledAutomaton automaton;
+    // Maps every possible byte to its column in the transition table, -1 when the byte is not in the alphabet
+    private final int[] byteColumns = new int[256];
+
+    public StreamingMatcher(CompiledAutomaton automaton) {
+        this.automaton = automaton;
+        for (int b = 0; b < byteColumns.length; b++) {
+            byteColumns[b] = automaton.symbolOf((char) b);
+        }
+    }
+
+    public Result match(ReadableByteChannel channel, RecordListener listener) throws IOException {
+        Run run = new Run(listener);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        long startTime = System.nanoTime();
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            run.feed(buffer);
+            buffer.clear();
+        }
+        return run.finish(startTime);
+    }
+
+    // Maps the file read-only window by window, records crossing a window boundary are carried over by the run state
+    public Result match(FileChannel file, RecordListener listener) throws IOException {
+        Run run = new Run(listener);
+        long startTime = System.nanoTime();
+        long size = file.size();
+        for (long offset = 0; offset < size; offset += MAP_WINDOW_SIZE) {
+            MappedByteBuffer window = file.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MAP_WINDOW_SIZE, size - offset));
+            run.feed(window);
+        }
+        return run.finish(startTime);
+    }
+
+    public Result match(Path path, RecordListener listener) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            return match(file, listener);
+        }
+    }
+
+    // Progress of one pass over the input, kept per call so a matcher can be shared between threads
+    private final class Run {
+        private final RecordListener listener;
+        private final int start = automaton.getStart();
+        private int state = start;
+        // A '\r' is held back until the next byte shows whether it ends a "\r\n" line
+        private boolean pendingCarriageReturn;
+        // Whether any byte of the current record has been seen, so a missing final newline still ends a record
+        private boolean inRecord;
+        private long record;
+        private long accepted;
+        private long bytes;
+
+        Run(RecordListener listener) {
+            this.listener = listener;
+        }
+
+        void feed(ByteBuffer buffer) {
+            int limit = buffer.limit();
+            for (int i = buffer.position(); i < limit; i++) {
+                int b = buffer.get(i) & 0xFF;
+                if (pendingCarriageReturn) {
+                    pendingCarriageReturn = false;
+                    if (b != '\n') {
+                        step('\r');
+                    }
+                }
+                if (b == '\n') {
+                    endRecord();
+                } else if (b == '\r') {
+                    pendingCarriageReturn = true;
+                    inRecord = true;
+                } else {
+                    step(b);
+                }
+            }
+            bytes += limit - buffer.position();
+        }
+
+        private void step(int b) {
+            inRecord = true;
+            if (state != CompiledAutomaton.DEAD) {
+                int column = byteColumns[b];
+                state = column < 0 ? CompiledAutomaton.DEAD : automaton.next(state, column);
+            }
+        }
+
+        private void endRecord() {
+            boolean isAccepted = state != CompiledAutomaton.DEAD && automaton.isAccepting(state);
+            if (isAccepted) {
+                accepted++;
+            }
+            if (listener != null) {
+                listener.onRecord(record, isAccepted);
+            }
+            record++;
+            state = start;
+            inRecord = false;
+        }
+
+        Result finish(long startTime) {
+            if (pendingCarriageReturn) {
+                pendingCarriageReturn = false;
+                step('\r');
+            }
+            if (inRecord) {
+                endRecord();
+            }
+            return new Result(record, accepted, bytes, System.nanoTime() - startTime);
+        }
+    }
+}
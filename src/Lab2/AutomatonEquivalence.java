@@ -0,0 +1,148 @@
+package src.Lab2;
+
+import src.Lab1.CompiledAutomaton;
+
+import java.util.*;
+
+// Language equivalence and inclusion checks between two compiled automata, without enumerating strings.
+// Equivalence uses the Hopcroft-Karp union-find algorithm, which is near-linear in the number of states.
+// Inclusion explores the reachable product breadth-first, so the counterexample it returns is a shortest one.
+// Symbols missing from one automaton's alphabet, like missing transitions, lead to its dead state
+public class AutomatonEquivalence {
+
+    public static boolean equivalent(CompiledAutomaton a, CompiledAutomaton b) {
+        return distinguishingString(a, b) == null;
+    }
+
+    // A string accepted by exactly one of the automata, or null when they accept the same language
+    public static String distinguishingString(CompiledAutomaton a, CompiledAutomaton b) {
+        AutomatonProduct product = new AutomatonProduct(a, b);
+        int deadA = a.getStateCount();
+        int deadB = b.getStateCount();
+
+        // States of a are 0..deadA and states of b follow them, both including their dead state
+        int[] parent = new int[deadA + deadB + 2];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        PairQueue queue = new PairQueue();
+        queue.add(a.getStart(), b.getStart(), -1, -1);
+        union(parent, a.getStart(), deadA + 1 + b.getStart());
+        for (int head = 0; head < queue.size; head++) {
+            int p = queue.first[head];
+            int q = queue.second[head];
+            if (product.acceptsA(p) != product.acceptsB(q)) {
+                return queue.path(head, product);
+            }
+            for (int symbol = 0; symbol < product.symbols.length; symbol++) {
+                int nextP = product.nextA(p, symbol);
+                int nextQ = product.nextB(q, symbol);
+                if (union(parent, nextP, deadA + 1 + nextQ)) {
+                    queue.add(nextP, nextQ, head, symbol);
+                }
+            }
+        }
+        return null;
+    }
+
+    // True when every string accepted by a is accepted by b
+    public static boolean isSubset(CompiledAutomaton a, CompiledAutomaton b) {
+        return inclusionCounterexample(a, b) == null;
+    }
+
+    // A shortest string accepted by a but not by b, or null when the language of a is included in the one of b
+    public static String inclusionCounterexample(CompiledAutomaton a, CompiledAutomaton b) {
+        AutomatonProduct product = new AutomatonProduct(a, b);
+        int deadA = a.getStateCount();
+        long width = b.getStateCount() + 1L;
+        // Product pairs already queued, keyed by p * width + q. A bitmap is used whenever the keys fit in an int
+        boolean small = (deadA + 1) * width <= Integer.MAX_VALUE;
+        BitSet seenBits = small ? new BitSet() : null;
+        Set<Long> seenKeys = small ? null : new HashSet<>();
+
+        PairQueue queue = new PairQueue();
+        queue.add(a.getStart(), b.getStart(), -1, -1);
+        markSeen(a.getStart() * width + b.getStart(), seenBits, seenKeys);
+        for (int head = 0; head < queue.size; head++) {
+            int p = queue.first[head];
+            int q = queue.second[head];
+            if (product.acceptsA(p) && !product.acceptsB(q)) {
+                return queue.path(head, product);
+            }
+            for (int symbol = 0; symbol < product.symbols.length; symbol++) {
+                int nextP = product.nextA(p, symbol);
+                int nextQ = product.nextB(q, symbol);
+                // Once a is dead nothing below this pair is accepted by a
+                if (nextP != deadA && markSeen(nextP * width + nextQ, seenBits, seenKeys)) {
+                    queue.add(nextP, nextQ, head, symbol);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Records a product pair, returns false when it was seen before
+    private static boolean markSeen(long key, BitSet seenBits, Set<Long> seenKeys) {
+        if (seenBits == null) {
+            return seenKeys.add(key);
+        }
+        if (seenBits.get((int) key)) {
+            return false;
+        }
+        seenBits.set((int) key);
+        return true;
+    }
+
+    // Merges the classes of x and y, returns false when they were already the same class
+    private static boolean union(int[] parent, int x, int y) {
+        int rootX = find(parent, x);
+        int rootY = find(parent, y);
+        if (rootX == rootY) {
+            return false;
+        }
+        parent[rootX] = rootY;
+        return true;
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            // Path halving keeps the trees flat
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // Breadth-first queue of state pairs that remembers how each pair was reached
+    private static final class PairQueue {
+        int[] first = new int[64];
+        int[] second = new int[64];
+        int[] from = new int[64];
+        int[] symbol = new int[64];
+        int size;
+
+        void add(int p, int q, int parent, int via) {
+            if (size == first.length) {
+                first = Arrays.copyOf(first, size * 2);
+                second = Arrays.copyOf(second, size * 2);
+                from = Arrays.copyOf(from, size * 2);
+                symbol = Arrays.copyOf(symbol, size * 2);
+            }
+            first[size] = p;
+            second[size] = q;
+            from[size] = parent;
+            symbol[size] = via;
+            size++;
+        }
+
+        // Symbols on the way from the start pair to the given entry
+        String path(int entry, AutomatonProduct product) {
+            StringBuilder reversed = new StringBuilder();
+            for (int i = entry; from[i] != -1; i = from[i]) {
+                reversed.append(product.symbols[symbol[i]]);
+            }
+            return reversed.reverse().toString();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package src.Lab2;
+
+import src.Lab1.CompiledAutomaton;
+
+import java.util.*;
+
+// Two compiled automata run side by side over the union of their alphabets. Each automaton gets an explicit dead
+// state numbered after its real states, reached by missing transitions and by symbols outside its own alphabet.
+// Shared by the equivalence checks and the lazy product automata
+final class AutomatonProduct {
+    final char[] symbols;
+    private final CompiledAutomaton a;
+    private final CompiledAutomaton b;
+    private final int[] columnsA;
+    private final int[] columnsB;
+    // Maps an input character to its column in the product, -1 for characters in neither alphabet
+    private final int[] symbolIndex;
+
+    AutomatonProduct(CompiledAutomaton a, CompiledAutomaton b) {
+        this.a = a;
+        this.b = b;
+        Set<Character> merged = new TreeSet<>();
+        for (char symbol : a.getAlphabet()) {
+            merged.add(symbol);
+        }
+        for (char symbol : b.getAlphabet()) {
+            merged.add(symbol);
+        }
+        symbols = new char[merged.size()];
+        columnsA = new int[merged.size()];
+        columnsB = new int[merged.size()];
+        int index = 0;
+        for (char symbol : merged) {
+            symbols[index] = symbol;
+            columnsA[index] = a.symbolOf(symbol);
+            columnsB[index] = b.symbolOf(symbol);
+            index++;
+        }
+        symbolIndex = new int[symbols.length == 0 ? 0 : symbols[symbols.length - 1] + 1];
+        Arrays.fill(symbolIndex, -1);
+        for (int i = 0; i < symbols.length; i++) {
+            symbolIndex[symbols[i]] = i;
+        }
+    }
+
+    // Column of the given character, or -1 if neither automaton knows it
+    int symbolOf(char symbol) {
+        return symbol < symbolIndex.length ? symbolIndex[symbol] : -1;
+    }
+
+    int deadA() {
+        return a.getStateCount();
+    }
+
+    int deadB() {
+        return b.getStateCount();
+    }
+
+    int nextA(int state, int symbol) {
+        return next(a, columnsA[symbol], state);
+    }
+
+    int nextB(int state, int symbol) {
+        return next(b, columnsB[symbol], state);
+    }
+
+    private static int next(CompiledAutomaton automaton, int column, int state) {
+        int dead = automaton.getStateCount();
+        if (state == dead || column < 0) {
+            return dead;
+        }
+        int target = automaton.next(state, column);
+        return target == CompiledAutomaton.DEAD ? dead : target;
+    }
+
+    boolean acceptsA(int state) {
+        return state < a.getStateCount() && a.isAccepting(state);
+    }
+
+    boolean acceptsB(int state) {
+        return state < b.getStateCount() && b.isAccepting(state);
+    }
+}
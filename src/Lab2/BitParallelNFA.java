@@ -0,0 +1,111 @@
+package src.Lab2;
+
+import java.util.*;
+
+// Simulates a small NFA directly, without subset construction.
+// The set of active states is a bitmap (a single long up to 64 states) and for every symbol a precomputed table
+// maps each byte of that bitmap to the union of the successors of its 8 states. One step therefore ORs one
+// table entry per non-zero byte of the active set, and automata with up to 8 states take one lookup per symbol
+public class BitParallelNFA {
+    // Tables grow with states * states, beyond this subset construction or LazyDFA is the better engine
+    public static final int MAX_STATES = 256;
+
+    private final IndexedNFA nfa;
+    private final int words;
+    private final int chunks;
+    // Successor masks, the entry for (symbol, chunk, byte value) starts at ((symbol * chunks + chunk) * 256 + value) * words
+    private final long[] masks;
+
+    public BitParallelNFA(Map<String, Map<Character, List<String>>> nfaTransitions, String startState, Set<String> acceptingStates) {
+        this.nfa = new IndexedNFA(nfaTransitions, startState, acceptingStates);
+        if (nfa.stateCount > MAX_STATES) {
+            throw new IllegalArgumentException("Bit-parallel simulation supports at most " + MAX_STATES
+                    + " states, the automaton has " + nfa.stateCount);
+        }
+        this.words = nfa.wordCount();
+        this.chunks = (nfa.stateCount + 7) >>> 3;
+        this.masks = new long[nfa.symbolCount * chunks * 256 * words];
+
+        long[] single = new long[words];
+        long[] successors = new long[words];
+        for (int symbol = 0; symbol < nfa.symbolCount; symbol++) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int base = (symbol * chunks + chunk) * 256;
+                for (int value = 1; value < 256; value++) {
+                    // Entry for value = entry for value without its lowest bit + successors of that bit's state
+                    int state = (chunk << 3) + Integer.numberOfTrailingZeros(value);
+                    Arrays.fill(successors, 0);
+                    if (state < nfa.stateCount) {
+                        Arrays.fill(single, 0);
+                        single[state >>> 6] = 1L << state;
+                        nfa.step(single, symbol, successors);
+                    }
+                    int to = (base + value) * words;
+                    int from = (base + (value & (value - 1))) * words;
+                    for (int word = 0; word < words; word++) {
+                        masks[to + word] = masks[from + word] | successors[word];
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean accepts(CharSequence input) {
+        if (words == 1) {
+            return acceptsSingleWord(input);
+        }
+        long[] active = new long[words];
+        long[] next = new long[words];
+        active[nfa.start >>> 6] = 1L << nfa.start;
+        for (int i = 0; i < input.length(); i++) {
+            int symbol = nfa.symbolOf(input.charAt(i));
+            if (symbol < 0) {
+                return false;
+            }
+            Arrays.fill(next, 0);
+            boolean any = false;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int value = (int) (active[chunk >>> 3] >>> ((chunk & 7) << 3)) & 0xFF;
+                if (value != 0) {
+                    int offset = ((symbol * chunks + chunk) * 256 + value) * words;
+                    for (int word = 0; word < words; word++) {
+                        next[word] |= masks[offset + word];
+                    }
+                    any = true;
+                }
+            }
+            if (!any) {
+                return false;
+            }
+            long[] swap = active;
+            active = next;
+            next = swap;
+        }
+        return StateSet.intersects(active, nfa.accepting);
+    }
+
+    // Up to 64 states the whole active set is one long and nothing is allocated
+    private boolean acceptsSingleWord(CharSequence input) {
+        long active = 1L << nfa.start;
+        for (int i = 0; i < input.length(); i++) {
+            int symbol = nfa.symbolOf(input.charAt(i));
+            if (symbol < 0) {
+                return false;
+            }
+            long next = 0;
+            int base = symbol * chunks * 256;
+            for (long rest = active; rest != 0; rest >>>= 8, base += 256) {
+                next |= masks[base + (int) (rest & 0xFF)];
+            }
+            if (next == 0) {
+                return false;
+            }
+            active = next;
+        }
+        return (active & nfa.accepting[0]) != 0;
+    }
+
+    public int getStateCount() {
+        return nfa.stateCount;
+    }
+}
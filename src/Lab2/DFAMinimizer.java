@@ -0,0 +1,252 @@
+package src.Lab2;
+
+import src.Lab1.CompiledAutomaton;
+
+import java.util.Arrays;
+
+// Hopcroft's O(k * n log n) DFA minimization over the integer form of an automaton.
+// Missing transitions go to an implicit dead state, so partial DFAs (like the ones from convertNFAToDFA) work as they are
+public class DFAMinimizer {
+
+    // Returns the minimal automaton accepting the same language, numbered in breadth-first order from the start state
+    public static CompiledAutomaton minimize(CompiledAutomaton dfa) {
+        int stateCount = dfa.getStateCount();
+        int symbolCount = dfa.getSymbolCount();
+        int[] table = new int[stateCount * symbolCount];
+        int[] labels = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                table[state * symbolCount + symbol] = dfa.next(state, symbol);
+            }
+            labels[state] = dfa.isAccepting(state) ? 1 : 0;
+        }
+
+        int[] classes = equivalenceClasses(stateCount, symbolCount, table, labels);
+        int start = dfa.getStart();
+        if (classes[start] == CompiledAutomaton.DEAD) {
+            // Empty language, a single rejecting state is enough
+            return new CompiledAutomaton(dfa.getAlphabet(), filledTable(symbolCount), new boolean[1], 0);
+        }
+
+        // Number the classes reachable from the start in BFS order, this also drops unreachable states
+        int classCount = 0;
+        for (int c : classes) {
+            classCount = Math.max(classCount, c + 1);
+        }
+        int[] representative = new int[classCount];
+        Arrays.fill(representative, -1);
+        for (int state = 0; state < stateCount; state++) {
+            if (classes[state] != CompiledAutomaton.DEAD && representative[classes[state]] == -1) {
+                representative[classes[state]] = state;
+            }
+        }
+        int[] newId = new int[classCount];
+        Arrays.fill(newId, -1);
+        int[] queue = new int[classCount];
+        int head = 0;
+        int tail = 0;
+        newId[classes[start]] = tail;
+        queue[tail++] = classes[start];
+        while (head < tail) {
+            int state = representative[queue[head++]];
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = table[state * symbolCount + symbol];
+                if (target != CompiledAutomaton.DEAD && classes[target] != CompiledAutomaton.DEAD && newId[classes[target]] == -1) {
+                    newId[classes[target]] = tail;
+                    queue[tail++] = classes[target];
+                }
+            }
+        }
+
+        int[] minimalTable = new int[tail * symbolCount];
+        boolean[] accepting = new boolean[tail];
+        for (int id = 0; id < tail; id++) {
+            int state = representative[queue[id]];
+            accepting[id] = labels[state] != 0;
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = table[state * symbolCount + symbol];
+                minimalTable[id * symbolCount + symbol] = target == CompiledAutomaton.DEAD || classes[target] == CompiledAutomaton.DEAD
+                        ? CompiledAutomaton.DEAD : newId[classes[target]];
+            }
+        }
+        return new CompiledAutomaton(dfa.getAlphabet(), minimalTable, accepting, 0);
+    }
+
+    // Groups states that accept the same language into classes.
+    // table[state * symbolCount + symbol] holds the target or DEAD, labels separate states that must never merge
+    // (label 0 means rejecting, like the implicit dead state). Returns the class of every state,
+    // states equivalent to the dead state get DEAD
+    public static int[] equivalenceClasses(int stateCount, int symbolCount, int[] table, int[] labels) {
+        // State n is the dead state, it loops to itself on every symbol
+        int n = stateCount + 1;
+        int sink = stateCount;
+
+        // Inverse transitions in CSR form: predecessors of q on symbol a are inverse[inverseStart[a * n + q] ..]
+        int[] inverseStart = new int[symbolCount * n + 1];
+        for (int state = 0; state < n; state++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                inverseStart[symbol * n + target(table, symbolCount, sink, state, symbol) + 1]++;
+            }
+        }
+        for (int i = 1; i < inverseStart.length; i++) {
+            inverseStart[i] += inverseStart[i - 1];
+        }
+        int[] inverse = new int[n * symbolCount];
+        int[] fill = Arrays.copyOf(inverseStart, inverseStart.length - 1);
+        for (int state = 0; state < n; state++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                inverse[fill[symbol * n + target(table, symbolCount, sink, state, symbol)]++] = state;
+            }
+        }
+
+        // Partition: the states of block b are elements[blockStart[b] .. blockEnd[b]),
+        // the first marked[b] of them are the ones marked by the current splitter
+        int[] elements = new int[n];
+        int[] location = new int[n];
+        int[] blockOf = new int[n];
+        int[] blockStart = new int[n];
+        int[] blockEnd = new int[n];
+        int[] marked = new int[n];
+        int blockCount = initialPartition(labels, sink, elements, location, blockOf, blockStart, blockEnd);
+
+        // Worklist of (block, symbol) splitters, every block but the largest starts in it
+        int[] worklist = new int[n * Math.max(symbolCount, 1)];
+        boolean[] inWorklist = new boolean[n * Math.max(symbolCount, 1)];
+        int pending = 0;
+        int largest = 0;
+        for (int block = 1; block < blockCount; block++) {
+            if (blockEnd[block] - blockStart[block] > blockEnd[largest] - blockStart[largest]) {
+                largest = block;
+            }
+        }
+        for (int block = 0; block < blockCount; block++) {
+            if (block != largest) {
+                for (int symbol = 0; symbol < symbolCount; symbol++) {
+                    worklist[pending++] = block * symbolCount + symbol;
+                    inWorklist[block * symbolCount + symbol] = true;
+                }
+            }
+        }
+
+        int[] splitter = new int[n];
+        int[] touched = new int[n];
+        while (pending > 0) {
+            int entry = worklist[--pending];
+            inWorklist[entry] = false;
+            int block = entry / symbolCount;
+            int symbol = entry % symbolCount;
+
+            // Copy the splitter first, marking below may reorder its own elements
+            int size = blockEnd[block] - blockStart[block];
+            System.arraycopy(elements, blockStart[block], splitter, 0, size);
+
+            int touchedCount = 0;
+            for (int i = 0; i < size; i++) {
+                int q = splitter[i];
+                for (int j = inverseStart[symbol * n + q]; j < inverseStart[symbol * n + q + 1]; j++) {
+                    int p = inverse[j];
+                    int b = blockOf[p];
+                    int firstUnmarked = blockStart[b] + marked[b];
+                    if (location[p] < firstUnmarked) {
+                        continue;
+                    }
+                    if (marked[b] == 0) {
+                        touched[touchedCount++] = b;
+                    }
+                    // Swap p to the end of the marked prefix of its block
+                    int other = elements[firstUnmarked];
+                    elements[location[p]] = other;
+                    location[other] = location[p];
+                    elements[firstUnmarked] = p;
+                    location[p] = firstUnmarked;
+                    marked[b]++;
+                }
+            }
+
+            for (int t = 0; t < touchedCount; t++) {
+                int b = touched[t];
+                int markedCount = marked[b];
+                marked[b] = 0;
+                if (markedCount == blockEnd[b] - blockStart[b]) {
+                    continue;
+                }
+                // The marked prefix becomes a new block
+                int created = blockCount++;
+                blockStart[created] = blockStart[b];
+                blockEnd[created] = blockStart[b] + markedCount;
+                blockStart[b] = blockEnd[created];
+                for (int i = blockStart[created]; i < blockEnd[created]; i++) {
+                    blockOf[elements[i]] = created;
+                }
+                int smaller = blockEnd[created] - blockStart[created] <= blockEnd[b] - blockStart[b] ? created : b;
+                for (int c = 0; c < symbolCount; c++) {
+                    int add = inWorklist[b * symbolCount + c] ? created : smaller;
+                    if (!inWorklist[add * symbolCount + c]) {
+                        inWorklist[add * symbolCount + c] = true;
+                        worklist[pending++] = add * symbolCount + c;
+                    }
+                }
+            }
+        }
+
+        // Renumber so classes are dense and the dead state's class becomes DEAD
+        int[] classOfBlock = new int[blockCount];
+        Arrays.fill(classOfBlock, -2);
+        classOfBlock[blockOf[sink]] = CompiledAutomaton.DEAD;
+        int[] classes = new int[stateCount];
+        int classCount = 0;
+        for (int state = 0; state < stateCount; state++) {
+            int b = blockOf[state];
+            if (classOfBlock[b] == -2) {
+                classOfBlock[b] = classCount++;
+            }
+            classes[state] = classOfBlock[b];
+        }
+        return classes;
+    }
+
+    private static int target(int[] table, int symbolCount, int sink, int state, int symbol) {
+        if (state == sink) {
+            return sink;
+        }
+        int target = table[state * symbolCount + symbol];
+        return target == CompiledAutomaton.DEAD ? sink : target;
+    }
+
+    // One block per distinct label, the dead state shares the block of label 0
+    private static int initialPartition(int[] labels, int sink, int[] elements, int[] location,
+                                        int[] blockOf, int[] blockStart, int[] blockEnd) {
+        int n = sink + 1;
+        Integer[] order = new Integer[n];
+        for (int state = 0; state < n; state++) {
+            order[state] = state;
+        }
+        Arrays.sort(order, (x, y) -> Integer.compare(labelOf(labels, sink, x), labelOf(labels, sink, y)));
+
+        int blockCount = 0;
+        for (int i = 0; i < n; i++) {
+            int state = order[i];
+            if (i == 0 || labelOf(labels, sink, state) != labelOf(labels, sink, order[i - 1])) {
+                if (blockCount > 0) {
+                    blockEnd[blockCount - 1] = i;
+                }
+                blockStart[blockCount++] = i;
+            }
+            elements[i] = state;
+            location[state] = i;
+            blockOf[state] = blockCount - 1;
+        }
+        blockEnd[blockCount - 1] = n;
+        return blockCount;
+    }
+
+    private static int labelOf(int[] labels, int sink, int state) {
+        return state == sink ? 0 : labels[state];
+    }
+
+    private static int[] filledTable(int symbolCount) {
+        int[] table = new int[symbolCount];
+        Arrays.fill(table, CompiledAutomaton.DEAD);
+        return table;
+    }
+}
@@ -1,10 +1,18 @@
 package src.Lab2;
 
+import src.Lab1.CompiledAutomaton;
+import src.Lab1.MappedAutomaton;
+
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Predicate;
 
 public class FiniteAutomatonToRegularGrammar {
+    // DFA states kept by the lazy engine chosen in compileMatcher
+    private static final int LAZY_DFA_CACHE_SIZE = 4096;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         // Initialize a map to hold the transitions of the FA
         Map<String, Map<Character, List<String>>> transitions = new HashMap<>();
 
@@ -34,6 +42,34 @@ public class FiniteAutomatonToRegularGrammar {
         convertToRegularGrammar(transitions, "q3");
 
         convertNFAToDFA(transitions);
+
+        CompiledAutomaton dfa = SubsetConstruction.determinize(transitions, "q0", Set.of("q3"), SubsetConstruction.NO_LIMIT).getAutomaton();
+        CompiledAutomaton minimal = DFAMinimizer.minimize(dfa);
+        System.out.println("DFA states before minimization: " + dfa.getStateCount() + ", after: " + minimal.getStateCount());
+        System.out.println("Minimal DFA is " + (AutomatonEquivalence.equivalent(dfa, minimal) ? "" : "NOT ") + "equivalent to the DFA");
+        // Strings ending in b that the automaton rejects, the product is explored only as far as the search needs
+        CompiledAutomaton endsInB = RegularGrammarCompiler.compile(new String[]{"S -> aS", "S -> bS", "S -> b"});
+        System.out.println("Shortest string ending in b that is rejected: " + ProductAutomaton.difference(endsInB, minimal).shortestMember());
+        System.out.println(minimal);
+
+        // Same language without building the whole DFA, subset states are created as inputs reach them
+        LazyDFA lazy = new LazyDFA(transitions, "q0", Set.of("q3"), 64);
+        for (String input : List.of("ab", "abaab", "aabaaaab", "ba")) {
+            System.out.println(input + ": " + (lazy.accepts(input) ? "accepted" : "rejected"));
+        }
+        System.out.println(lazy);
+
+        // The lab NFA has 4 states, so this picks bit-parallel simulation
+        Predicate<CharSequence> matcher = compileMatcher(transitions, "q0", Set.of("q3"));
+        System.out.println("abaab: " + (matcher.test("abaab") ? "accepted" : "rejected"));
+
+        if (args.length > 0) {
+            // Save the minimal DFA so other processes can map it instead of rebuilding it
+            MappedAutomaton.write(minimal, Path.of(args[0]));
+            MappedAutomaton mapped = MappedAutomaton.open(Path.of(args[0]));
+            System.out.println("Saved " + mapped.getStateCount() + " states to " + args[0] + ", abaab: "
+                    + (mapped.accepts("abaab") ? "accepted" : "rejected"));
+        }
     }
 
     public static void convertToRegularGrammar(Map<String, Map<Character, List<String>>> transitions, String acceptingState) {
@@ -65,41 +101,45 @@ public class FiniteAutomatonToRegularGrammar {
         return true;
     }
 
-    public static void convertNFAToDFA(Map<String, Map<Character, List<String>>> nfaTransitions) {
-        Set<Set<String>> dfaStates = new HashSet<>();
-        Map<Set<String>, Map<Character, Set<String>>> dfaTransitions = new HashMap<>();
+    // Picks the fastest engine for a membership check on the given automaton:
+    // a dense table when it is already deterministic, bit-parallel simulation for small NFAs,
+    // and a lazily built DFA otherwise (LazyDFA keeps a cache, so that matcher must stay on one thread)
+    public static Predicate<CharSequence> compileMatcher(Map<String, Map<Character, List<String>>> transitions, String startState, Set<String> acceptingStates) {
+        if (isDeterministicFA(transitions)) {
+            // Every subset has a single state, so this cannot blow up
+            return SubsetConstruction.determinize(transitions, startState, acceptingStates, SubsetConstruction.NO_LIMIT).getAutomaton()::accepts;
+        }
+        try {
+            return new BitParallelNFA(transitions, startState, acceptingStates)::accepts;
+        } catch (IllegalArgumentException tooManyStates) {
+            return new LazyDFA(transitions, startState, acceptingStates, LAZY_DFA_CACHE_SIZE)::accepts;
+        }
+    }
 
+    public static Map<Set<String>, Map<Character, Set<String>>> convertNFAToDFA(Map<String, Map<Character, List<String>>> nfaTransitions) {
         // Start with the initial NFA state
-        Set<String> startState = new HashSet<>();
-        startState.add("q0"); // Assuming "q0" is the start state
-        generateDFAState(startState, nfaTransitions, dfaStates, dfaTransitions);
-
-        printDFA(dfaTransitions);
+        return convertNFAToDFA(nfaTransitions, "q0");
     }
 
-    private static void generateDFAState(Set<String> currentState, Map<String, Map<Character, List<String>>> nfaTransitions, Set<Set<String>> dfaStates, Map<Set<String>, Map<Character, Set<String>>> dfaTransitions) {
-        if (!dfaStates.add(currentState)) {
-            // State already exists in DFA, no need to explore it again
-            return;
-        }
-
-        Map<Character, Set<String>> currentTransitions = new HashMap<>();
-        for (char symbol : new char[]{'a', 'b'}) { // Assuming alphabet is {'a', 'b'}
-            Set<String> newState = new HashSet<>();
-            for (String state : currentState) {
-                List<String> transitions = nfaTransitions.getOrDefault(state, new HashMap<>()).get(symbol);
-                if (transitions != null) {
-                    newState.addAll(transitions);
+    public static Map<Set<String>, Map<Character, Set<String>>> convertNFAToDFA(Map<String, Map<Character, List<String>>> nfaTransitions, String startState) {
+        // The alphabet is taken from the transitions, accepting states do not matter for printing
+        SubsetConstruction.Result dfa = SubsetConstruction.determinize(nfaTransitions, startState, Set.of(), SubsetConstruction.NO_LIMIT);
+        CompiledAutomaton automaton = dfa.getAutomaton();
+
+        Map<Set<String>, Map<Character, Set<String>>> dfaTransitions = new LinkedHashMap<>();
+        for (int state = 0; state < dfa.getStateCount(); state++) {
+            Map<Character, Set<String>> currentTransitions = new LinkedHashMap<>();
+            for (int symbol = 0; symbol < automaton.getSymbolCount(); symbol++) {
+                int target = automaton.next(state, symbol);
+                if (target != CompiledAutomaton.DEAD) {
+                    currentTransitions.put(automaton.getSymbol(symbol), dfa.getSubset(target));
                 }
             }
-
-            if (!newState.isEmpty()) {
-                // Recursively generate DFA state for the new state
-                generateDFAState(newState, nfaTransitions, dfaStates, dfaTransitions);
-                currentTransitions.put(symbol, newState);
-            }
+            dfaTransitions.put(dfa.getSubset(state), currentTransitions);
         }
-        dfaTransitions.put(currentState, currentTransitions);
+
+        printDFA(dfaTransitions);
+        return dfaTransitions;
     }
 
     private static void printDFA(Map<Set<String>, Map<Character, Set<String>>> dfaTransitions) {
@@ -1,8 +1,98 @@
 package src.Lab2;
 
+import src.Lab1.CompiledAutomaton;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 public class GrammarClassifier {
+    // One bit per grammar type the productions seen so far still allow
+    private static final int TYPE_3 = 1;
+    private static final int TYPE_2 = 2;
+    private static final int TYPE_1 = 4;
+    private static final int ALL_TYPES = TYPE_3 | TYPE_2 | TYPE_1;
+    // Characters read per block when classifying a file, full blocks are classified on the fork-join pool
+    private static final int BLOCK_SIZE = 1 << 20;
+    // Below this many productions an array is classified on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    // Which characters of a grammar are non-terminals and which are terminals.
+    // The tables only reach up to the highest character they contain
+    public static final class Symbols {
+        private final boolean[] nonTerminals;
+        // Null when every character that is not a non-terminal is a terminal
+        private final boolean[] terminals;
+
+        private Symbols(boolean[] nonTerminals, boolean[] terminals) {
+            this.nonTerminals = nonTerminals;
+            this.terminals = terminals;
+        }
+
+        public static Symbols of(String nonTerminals, String terminals) {
+            return new Symbols(table(nonTerminals), table(terminals));
+        }
+
+        // Textbook convention: upper case letters are non-terminals, every other visible character is a terminal.
+        // The tables cover all of char, so they are built once and shared
+        public static Symbols upperCaseNonTerminals() {
+            return UpperCase.SYMBOLS;
+        }
+
+        boolean isNonTerminal(char symbol) {
+            return symbol < nonTerminals.length && nonTerminals[symbol];
+        }
+
+        boolean isTerminal(char symbol) {
+            if (terminals == null) {
+                return !isNonTerminal(symbol);
+            }
+            return symbol < terminals.length && terminals[symbol];
+        }
+
+        private static boolean[] table(String symbols) {
+            char max = 0;
+            for (int i = 0; i < symbols.length(); i++) {
+                max = (char) Math.max(max, symbols.charAt(i));
+            }
+            boolean[] table = new boolean[symbols.isEmpty() ? 0 : max + 1];
+            for (int i = 0; i < symbols.length(); i++) {
+                table[symbols.charAt(i)] = true;
+            }
+            return table;
+        }
+
+        private static final class UpperCase {
+            static final Symbols SYMBOLS;
+
+            static {
+                boolean[] nonTerminals = new boolean[Character.MAX_VALUE + 1];
+                boolean[] terminals = new boolean[Character.MAX_VALUE + 1];
+                for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                    if (Character.isUpperCase(c)) {
+                        nonTerminals[c] = true;
+                    } else if (!Character.isWhitespace(c) && !Character.isISOControl(c)) {
+                        terminals[c] = true;
+                    }
+                }
+                SYMBOLS = new Symbols(nonTerminals, terminals);
+            }
+        }
+    }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            // Classify a grammar file with one production per line
+            System.out.println("The grammar is of type " + classifyGrammar(Path.of(args[0]), Symbols.upperCaseNonTerminals()));
+            return;
+        }
         String[] productions = {
                 "S -> aB",
                 "B -> aD",
@@ -15,47 +105,207 @@ public class GrammarClassifier {
 
         int grammarType = classifyGrammar(productions);
         System.out.println("The grammar is of type " + grammarType);
+
+        if (grammarType == 3) {
+            // Regular grammars compile into an automaton for linear-time membership checks
+            CompiledAutomaton automaton = RegularGrammarCompiler.compile(productions);
+            System.out.println("abac is " + (automaton.accepts("abac") ? "" : "not ") + "generated by the grammar");
+        }
     }
 
+    // Non-terminals are the symbols that appear alone on a left side, every other symbol is a terminal
     public static int classifyGrammar(String[] productions) {
-        boolean isType3 = true;
-        boolean isType2 = true;
-        boolean isType1 = true;
+        boolean[] nonTerminals = new boolean[0];
+        for (String production : productions) {
+            int arrow = production.indexOf("->");
+            int leftLength = 0;
+            char leftSymbol = 0;
+            for (int i = 0; i < arrow; i++) {
+                if (!Character.isWhitespace(production.charAt(i))) {
+                    leftSymbol = production.charAt(i);
+                    leftLength++;
+                }
+            }
+            if (leftLength == 1) {
+                if (leftSymbol >= nonTerminals.length) {
+                    nonTerminals = Arrays.copyOf(nonTerminals, leftSymbol + 1);
+                }
+                nonTerminals[leftSymbol] = true;
+            }
+        }
+        return classifyGrammar(productions, new Symbols(nonTerminals, null));
+    }
 
+    public static int classifyGrammar(String[] productions, Symbols symbols) {
+        if (productions.length >= PARALLEL_THRESHOLD) {
+            return typeOf(Arrays.stream(productions).parallel()
+                    .mapToInt(production -> classifyProduction(production, 0, production.length(), symbols))
+                    .reduce(ALL_TYPES, (a, b) -> a & b));
+        }
+        int types = ALL_TYPES;
         for (String production : productions) {
-            // Split the production rule into left and right parts based on "->"
-            String[] parts = production.split("->");
-            String leftSide = parts[0].trim();
-            String rightSide = parts[1].trim();
+            types &= classifyProduction(production, 0, production.length(), symbols);
+            if (types == 0) {
+                // Nothing but type 0 is left, the remaining productions cannot change that
+                break;
+            }
+        }
+        return typeOf(types);
+    }
+
+    // Classifies a file with one production per line in a single buffered pass.
+    // Blocks of whole lines are classified in parallel and reading stops as soon as the type is decided
+    public static int classifyGrammar(Path file, Symbols symbols) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxInFlight = 2 * pool.getParallelism();
+        Deque<Future<Integer>> inFlight = new ArrayDeque<>();
+        int types = ALL_TYPES;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file.toFile()), StandardCharsets.UTF_8)) {
+            char[] block = new char[BLOCK_SIZE];
+            int filled = 0;
+            int read;
+            while (types != 0 && (read = reader.read(block, filled, block.length - filled)) != -1) {
+                filled += read;
+                if (filled < block.length) {
+                    // Readers return small pieces, only full blocks are worth a task
+                    continue;
+                }
+                int lastNewline = filled - 1;
+                while (lastNewline >= 0 && block[lastNewline] != '\n') {
+                    lastNewline--;
+                }
+                if (lastNewline < 0) {
+                    // A single production longer than the block, keep reading into a bigger one
+                    block = Arrays.copyOf(block, block.length * 2);
+                    continue;
+                }
+                // Hand the complete lines to the pool and move the unfinished last line to the front of the block
+                String lines = new String(block, 0, lastNewline);
+                inFlight.add(pool.submit(() -> classifyLines(lines, symbols)));
+                System.arraycopy(block, lastNewline + 1, block, 0, filled - lastNewline - 1);
+                filled -= lastNewline + 1;
+                while (!inFlight.isEmpty() && (inFlight.size() >= maxInFlight || inFlight.peek().isDone())) {
+                    types &= await(inFlight.poll());
+                }
+            }
+            if (types != 0 && filled > 0) {
+                types &= classifyLines(new String(block, 0, filled), symbols);
+            }
+            while (!inFlight.isEmpty()) {
+                types &= await(inFlight.poll());
+            }
+        }
+        return typeOf(types);
+    }
 
-            // Check for Type 3: Regular Grammar
-            if (!rightSide.matches("^[a-c]*[SBD]?$")) {
-                isType3 = false;
+    private static int classifyLines(String text, Symbols symbols) {
+        int types = ALL_TYPES;
+        int lineStart = 0;
+        while (lineStart < text.length() && types != 0) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
             }
+            types &= classifyProduction(text, lineStart, lineEnd, symbols);
+            lineStart = lineEnd + 1;
+        }
+        return types;
+    }
 
-            // Check for Type 2: Context-Free Grammar
-            if (leftSide.length() != 1 || !leftSide.matches("[SBD]")) {
-                isType2 = false;
+    // Position of the first "->" in text[start, end), -1 when the production has none
+    private static int indexOfArrow(String text, int start, int end) {
+        for (int i = start; i + 1 < end; i++) {
+            if (text.charAt(i) == '-' && text.charAt(i + 1) == '>') {
+                return i;
             }
+        }
+        return -1;
+    }
 
-            // Check for Type 1: Context-Sensitive Grammar
-            if (rightSide.length() < leftSide.length()) {
-                isType1 = false;
-                break;
+    // Returns the types one production allows, reading its symbols in place without splitting or regular expressions
+    private static int classifyProduction(String text, int start, int end, Symbols symbols) {
+        // Split the production rule into left and right parts based on "->"
+        int arrow = indexOfArrow(text, start, end);
+        if (arrow < 0) {
+            for (int i = start; i < end; i++) {
+                if (!Character.isWhitespace(text.charAt(i))) {
+                    throw new IllegalArgumentException("Missing '->' in production: " + text.substring(start, end).trim());
+                }
+            }
+            // Blank line
+            return ALL_TYPES;
+        }
+
+        int leftLength = 0;
+        char leftSymbol = 0;
+        for (int i = start; i < arrow; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                leftSymbol = text.charAt(i);
+                leftLength++;
+            }
+        }
+
+        // Type 3 right sides are terminals followed by at most one non-terminal
+        boolean rightLinear = true;
+        boolean seenNonTerminal = false;
+        int rightLength = 0;
+        for (int i = arrow + 2; i < end; i++) {
+            char symbol = text.charAt(i);
+            if (Character.isWhitespace(symbol)) {
+                continue;
+            }
+            rightLength++;
+            if (seenNonTerminal) {
+                rightLinear = false;
+            } else if (symbols.isNonTerminal(symbol)) {
+                seenNonTerminal = true;
+            } else if (!symbols.isTerminal(symbol)) {
+                rightLinear = false;
             }
         }
 
+        int types = 0;
+        boolean singleNonTerminal = leftLength == 1 && symbols.isNonTerminal(leftSymbol);
+        // Check for Type 3: Regular Grammar
+        if (rightLinear && singleNonTerminal) {
+            types |= TYPE_3;
+        }
+        // Check for Type 2: Context-Free Grammar
+        if (singleNonTerminal) {
+            types |= TYPE_2;
+        }
+        // Check for Type 1: Context-Sensitive Grammar
+        if (rightLength >= leftLength) {
+            types |= TYPE_1;
+        }
+        return types;
+    }
+
+    private static int typeOf(int types) {
         // Determine grammar type
-        if (isType3) {
+        if ((types & TYPE_3) != 0) {
             return 3;
-        } else if (isType2) {
+        } else if ((types & TYPE_2) != 0) {
             return 2;
-        } else if (isType1) {
+        } else if ((types & TYPE_1) != 0) {
             return 1;
         } else {
             // If none of the above, it's Type 0.
             return 0;
         }
     }
-}
 
+    private static int await(Future<Integer> block) throws IOException {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while classifying the grammar", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Grammar classification failed", e.getCause());
+        }
+    }
+}
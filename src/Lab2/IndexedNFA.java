@@ -0,0 +1,116 @@
+package src.Lab2;
+
+import java.util.*;
+
+// Integer form of an NFA given as state -> symbol -> target states.
+// States and symbols are numbered once, and the successors of (state, symbol) are stored in CSR arrays
+final class IndexedNFA {
+    final String[] stateNames;
+    final char[] alphabet;
+    final int stateCount;
+    final int symbolCount;
+    final int start;
+    // Accepting states as a bitmap over state indices
+    final long[] accepting;
+    // Successors of (state, symbol) are targets[targetStart[state * symbolCount + symbol] .. targetStart[.. + 1])
+    final int[] targetStart;
+    final int[] targets;
+    // Maps an input character to its symbol index, -1 for characters outside the alphabet
+    private final int[] symbolIndex;
+
+    IndexedNFA(Map<String, Map<Character, List<String>>> transitions, String startState, Set<String> acceptingStates) {
+        Map<String, Integer> stateIds = new LinkedHashMap<>();
+        stateIds.put(startState, 0);
+        Set<Character> symbols = new TreeSet<>();
+        for (Map.Entry<String, Map<Character, List<String>>> state : transitions.entrySet()) {
+            stateIds.putIfAbsent(state.getKey(), stateIds.size());
+            for (Map.Entry<Character, List<String>> transition : state.getValue().entrySet()) {
+                symbols.add(transition.getKey());
+                for (String target : transition.getValue()) {
+                    stateIds.putIfAbsent(target, stateIds.size());
+                }
+            }
+        }
+        for (String state : acceptingStates) {
+            stateIds.putIfAbsent(state, stateIds.size());
+        }
+
+        stateCount = stateIds.size();
+        stateNames = stateIds.keySet().toArray(new String[0]);
+        start = 0;
+        alphabet = new char[symbols.size()];
+        int index = 0;
+        for (char symbol : symbols) {
+            alphabet[index++] = symbol;
+        }
+        symbolCount = alphabet.length;
+        symbolIndex = new int[symbolCount == 0 ? 0 : alphabet[symbolCount - 1] + 1];
+        Arrays.fill(symbolIndex, -1);
+        for (int i = 0; i < symbolCount; i++) {
+            symbolIndex[alphabet[i]] = i;
+        }
+
+        accepting = new long[wordCount()];
+        for (String state : acceptingStates) {
+            int id = stateIds.get(state);
+            accepting[id >>> 6] |= 1L << id;
+        }
+
+        targetStart = new int[stateCount * symbolCount + 1];
+        List<Integer> collected = new ArrayList<>();
+        for (int state = 0; state < stateCount; state++) {
+            Map<Character, List<String>> stateTransitions = transitions.getOrDefault(stateNames[state], Map.of());
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                List<String> next = stateTransitions.get(alphabet[symbol]);
+                if (next != null) {
+                    // Duplicate targets are dropped, they would only repeat work during simulation
+                    Set<Integer> unique = new LinkedHashSet<>();
+                    for (String target : next) {
+                        unique.add(stateIds.get(target));
+                    }
+                    collected.addAll(unique);
+                }
+                targetStart[state * symbolCount + symbol + 1] = collected.size();
+            }
+        }
+        targets = collected.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Number of longs needed for a bitmap over the states
+    int wordCount() {
+        return (stateCount + 63) >>> 6;
+    }
+
+    int symbolOf(char symbol) {
+        return symbol < symbolIndex.length ? symbolIndex[symbol] : -1;
+    }
+
+    // ORs the successors of every state in from on the given symbol into to (which is cleared first)
+    void step(long[] from, int symbol, long[] to) {
+        Arrays.fill(to, 0);
+        for (int word = 0; word < from.length; word++) {
+            long bits = from[word];
+            while (bits != 0) {
+                int state = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int offset = state * symbolCount + symbol;
+                for (int i = targetStart[offset]; i < targetStart[offset + 1]; i++) {
+                    to[targets[i] >>> 6] |= 1L << targets[i];
+                }
+            }
+        }
+    }
+
+    // State names of a bitmap, in index order
+    Set<String> namesOf(long[] set) {
+        Set<String> names = new LinkedHashSet<>();
+        for (int word = 0; word < set.length; word++) {
+            long bits = set[word];
+            while (bits != 0) {
+                names.add(stateNames[(word << 6) + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+            }
+        }
+        return names;
+    }
+}
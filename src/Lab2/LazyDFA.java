@@ -0,0 +1,147 @@
+package src.Lab2;
+
+import src.Lab1.CompiledAutomaton;
+
+import java.util.*;
+
+// Simulates an NFA by building DFA states only when an input reaches them.
+// The DFA states live in a cache bounded to a fixed number of states. When it is full the cache is flushed
+// and refilled from the current state (the same policy RE2 uses), so memory stays capped while inputs that
+// keep to a few hot subsets still run at one table lookup per character.
+// The cache is mutated while matching, so an instance must not be shared between threads
+public class LazyDFA {
+    // Transition not computed yet
+    private static final int UNKNOWN = -2;
+
+    private final IndexedNFA nfa;
+    private final int capacity;
+    private final int symbolCount;
+
+    private final long[][] sets;
+    private final boolean[] accepting;
+    private final int[] table;
+    private final Map<StateSet, Integer> ids;
+    private int size;
+    private final StateSet probe;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long flushes;
+
+    public LazyDFA(Map<String, Map<Character, List<String>>> nfaTransitions, String startState, Set<String> acceptingStates, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("The cache needs room for at least 2 states, got " + capacity);
+        }
+        this.nfa = new IndexedNFA(nfaTransitions, startState, acceptingStates);
+        this.capacity = capacity;
+        this.symbolCount = nfa.symbolCount;
+        this.sets = new long[capacity][];
+        this.accepting = new boolean[capacity];
+        this.table = new int[capacity * symbolCount];
+        this.ids = new HashMap<>();
+        this.probe = new StateSet(new long[nfa.wordCount()]);
+        flush();
+    }
+
+    public boolean accepts(CharSequence input) {
+        // The start state always has ID 0, flushing re-creates it first
+        int state = 0;
+        for (int i = 0; i < input.length(); i++) {
+            int symbol = nfa.symbolOf(input.charAt(i));
+            if (symbol < 0) {
+                return false;
+            }
+            int next = table[state * symbolCount + symbol];
+            if (next == UNKNOWN) {
+                misses++;
+                next = computeTransition(state, symbol);
+            } else {
+                hits++;
+            }
+            if (next == CompiledAutomaton.DEAD) {
+                return false;
+            }
+            state = next;
+        }
+        return accepting[state];
+    }
+
+    // Finds or creates the DFA state reached from state on symbol
+    private int computeTransition(int state, int symbol) {
+        nfa.step(sets[state], symbol, probe.words);
+        if (probe.isEmpty()) {
+            table[state * symbolCount + symbol] = CompiledAutomaton.DEAD;
+            return CompiledAutomaton.DEAD;
+        }
+        probe.rehash();
+        Integer target = ids.get(probe);
+        if (target != null) {
+            table[state * symbolCount + symbol] = target;
+            return target;
+        }
+        if (size == capacity) {
+            // The source state is dropped as well, so this transition is not recorded
+            evictions += size - 1;
+            flushes++;
+            flush();
+            target = ids.get(probe);
+            return target != null ? target : addState(probe.copy());
+        }
+        int created = addState(probe.copy());
+        table[state * symbolCount + symbol] = created;
+        return created;
+    }
+
+    // Drops every cached state and re-creates the start state
+    private void flush() {
+        Arrays.fill(table, UNKNOWN);
+        Arrays.fill(sets, null);
+        ids.clear();
+        size = 0;
+        long[] start = new long[nfa.wordCount()];
+        start[nfa.start >>> 6] |= 1L << nfa.start;
+        addState(new StateSet(start));
+    }
+
+    private int addState(StateSet set) {
+        int id = size++;
+        sets[id] = set.words;
+        accepting[id] = StateSet.intersects(set.words, nfa.accepting);
+        ids.put(set, id);
+        return id;
+    }
+
+    // Transitions answered from the cache
+    public long getHits() {
+        return hits;
+    }
+
+    // Transitions that had to be computed from the NFA
+    public long getMisses() {
+        return misses;
+    }
+
+    // States dropped by flushes (the start state is always re-created and not counted)
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public int getCachedStates() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        return "LazyDFA cache: " + size + "/" + capacity + " states, " + hits + " hits, " + misses + " misses, "
+                + evictions + " evictions in " + flushes + " flushes";
+    }
+}
@@ -0,0 +1,215 @@
+package src.Lab2;
+
+import src.Lab1.CompiledAutomaton;
+
+import java.util.*;
+
+// Boolean combination of two compiled automata (intersection, union or difference) built lazily.
+// A pair of states only gets an ID when matching or an emptiness check reaches it, so combining large
+// automata never materializes all |A| x |B| pairs. compile() turns the reachable part into a dense table.
+// The pair cache grows while matching, so an instance must not be shared between threads (compile it for that)
+public class ProductAutomaton {
+    public enum Operation {
+        INTERSECTION, UNION, DIFFERENCE;
+
+        boolean accepts(boolean inA, boolean inB) {
+            switch (this) {
+                case INTERSECTION:
+                    return inA && inB;
+                case UNION:
+                    return inA || inB;
+                default:
+                    return inA && !inB;
+            }
+        }
+
+        // A pair from which no string can be accepted any more
+        boolean isDead(boolean deadA, boolean deadB) {
+            switch (this) {
+                case INTERSECTION:
+                    return deadA || deadB;
+                case UNION:
+                    return deadA && deadB;
+                default:
+                    return deadA;
+            }
+        }
+    }
+
+    // Transition not computed yet
+    private static final int UNKNOWN = -2;
+
+    private final AutomatonProduct product;
+    private final Operation operation;
+    private final char[] alphabet;
+    private final int symbolCount;
+    private final long width;
+
+    // Pair ID -> states of a and b (their dead state is numbered after their real states)
+    private int[] firstOf = new int[16];
+    private int[] secondOf = new int[16];
+    private final Map<Long, Integer> ids = new HashMap<>();
+    private int[] table;
+    private int size;
+
+    public ProductAutomaton(CompiledAutomaton a, CompiledAutomaton b, Operation operation) {
+        this.operation = operation;
+        product = new AutomatonProduct(a, b);
+        alphabet = product.symbols;
+        symbolCount = alphabet.length;
+
+        width = b.getStateCount() + 1L;
+        table = new int[16 * Math.max(symbolCount, 1)];
+        pairId(a.getStart(), b.getStart());
+    }
+
+    public static ProductAutomaton intersection(CompiledAutomaton a, CompiledAutomaton b) {
+        return new ProductAutomaton(a, b, Operation.INTERSECTION);
+    }
+
+    public static ProductAutomaton union(CompiledAutomaton a, CompiledAutomaton b) {
+        return new ProductAutomaton(a, b, Operation.UNION);
+    }
+
+    // Strings accepted by a but not by b
+    public static ProductAutomaton difference(CompiledAutomaton a, CompiledAutomaton b) {
+        return new ProductAutomaton(a, b, Operation.DIFFERENCE);
+    }
+
+    // Accepts every string over the given alphabet that a rejects. This needs no product, so it is built eagerly
+    public static CompiledAutomaton complement(CompiledAutomaton a, char[] alphabet) {
+        int symbolCount = alphabet.length;
+        int sink = a.getStateCount();
+        int[] table = new int[(sink + 1) * symbolCount];
+        boolean[] accepting = new boolean[sink + 1];
+        for (int state = 0; state <= sink; state++) {
+            accepting[state] = state == sink || !a.isAccepting(state);
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int column = a.symbolOf(alphabet[symbol]);
+                int target = state == sink || column < 0 ? CompiledAutomaton.DEAD : a.next(state, column);
+                table[state * symbolCount + symbol] = target == CompiledAutomaton.DEAD ? sink : target;
+            }
+        }
+        return new CompiledAutomaton(alphabet, table, accepting, a.getStart());
+    }
+
+    public boolean accepts(CharSequence input) {
+        // The start pair always has ID 0
+        int state = 0;
+        for (int i = 0; i < input.length(); i++) {
+            int symbol = product.symbolOf(input.charAt(i));
+            if (symbol < 0) {
+                // Neither automaton knows the character, both fall into their dead state
+                return false;
+            }
+            state = next(state, symbol);
+            if (state == CompiledAutomaton.DEAD) {
+                return false;
+            }
+        }
+        return isAccepting(state);
+    }
+
+    public boolean isEmpty() {
+        return shortestMember() == null;
+    }
+
+    // A shortest accepted string, or null when the language is empty. Explores pairs breadth-first from the start
+    public String shortestMember() {
+        int[] from = new int[size];
+        int[] via = new int[size];
+        Arrays.fill(from, -2);
+        from[0] = -1;
+        int[] queue = new int[size];
+        int tail = 0;
+        queue[tail++] = 0;
+        for (int head = 0; head < tail; head++) {
+            int state = queue[head];
+            if (isAccepting(state)) {
+                StringBuilder reversed = new StringBuilder();
+                for (int i = state; from[i] != -1; i = from[i]) {
+                    reversed.append(alphabet[via[i]]);
+                }
+                return reversed.reverse().toString();
+            }
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = next(state, symbol);
+                if (target == CompiledAutomaton.DEAD) {
+                    continue;
+                }
+                if (target >= from.length) {
+                    // New pairs were created, grow the bookkeeping with them
+                    int grown = Math.max(from.length * 2, target + 1);
+                    int old = from.length;
+                    from = Arrays.copyOf(from, grown);
+                    via = Arrays.copyOf(via, grown);
+                    queue = Arrays.copyOf(queue, grown);
+                    Arrays.fill(from, old, grown, -2);
+                }
+                if (from[target] == -2) {
+                    from[target] = state;
+                    via[target] = symbol;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Builds every pair reachable from the start and returns them as a dense, immutable automaton
+    public CompiledAutomaton compile() {
+        for (int state = 0; state < size; state++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                next(state, symbol);
+            }
+        }
+        boolean[] accepting = new boolean[size];
+        for (int state = 0; state < size; state++) {
+            accepting[state] = isAccepting(state);
+        }
+        return new CompiledAutomaton(alphabet, Arrays.copyOf(table, size * symbolCount), accepting, 0);
+    }
+
+    // Number of state pairs created so far
+    public int getMaterializedStates() {
+        return size;
+    }
+
+    private int next(int state, int symbol) {
+        int target = table[state * symbolCount + symbol];
+        if (target == UNKNOWN) {
+            int nextA = product.nextA(firstOf[state], symbol);
+            int nextB = product.nextB(secondOf[state], symbol);
+            boolean deadA = nextA == product.deadA();
+            boolean deadB = nextB == product.deadB();
+            target = operation.isDead(deadA, deadB) ? CompiledAutomaton.DEAD : pairId(nextA, nextB);
+            table[state * symbolCount + symbol] = target;
+        }
+        return target;
+    }
+
+    private int pairId(int stateA, int stateB) {
+        Integer id = ids.get(stateA * width + stateB);
+        if (id != null) {
+            return id;
+        }
+        if (size == firstOf.length) {
+            firstOf = Arrays.copyOf(firstOf, size * 2);
+            secondOf = Arrays.copyOf(secondOf, size * 2);
+        }
+        if ((size + 1) * symbolCount > table.length) {
+            int old = table.length;
+            table = Arrays.copyOf(table, Math.max(old * 2, (size + 1) * symbolCount));
+            Arrays.fill(table, old, table.length, UNKNOWN);
+        }
+        firstOf[size] = stateA;
+        secondOf[size] = stateB;
+        Arrays.fill(table, size * symbolCount, (size + 1) * symbolCount, UNKNOWN);
+        ids.put(stateA * width + stateB, size);
+        return size++;
+    }
+
+    private boolean isAccepting(int state) {
+        return operation.accepts(product.acceptsA(firstOf[state]), product.acceptsB(secondOf[state]));
+    }
+}
@@ -0,0 +1,120 @@
+package src.Lab2;
+
+import src.Lab1.CompiledAutomaton;
+import src.Lab1.Grammar;
+
+import java.util.*;
+
+// Turns a right-linear (type 3) grammar into a minimal compiled automaton, so membership takes one linear scan.
+// Every production must look like A -> xyz or A -> xyzB (terminals followed by at most one non-terminal),
+// including A -> B and A -> ε. Non-terminals are the symbols that have productions, everything else is a terminal
+public class RegularGrammarCompiler {
+    // NFA state every complete derivation ends in, '#' never appears in a single-character non-terminal name
+    private static final String FINAL_STATE = "#final";
+
+    public static void main(String[] args) {
+        CompiledAutomaton automaton = compile(new Grammar());
+        System.out.println("abac is " + (automaton.accepts("abac") ? "" : "not ") + "in the language, abab is "
+                + (automaton.accepts("abab") ? "" : "not ") + "in the language");
+    }
+
+    // The Lab1 grammar, whose rules are right-linear
+    public static CompiledAutomaton compile(Grammar grammar) {
+        return compile(grammar.getRules(), grammar.getStartSymbol());
+    }
+
+    // Compiles productions written like the ones GrammarClassifier reads ("S -> aB", "D -> c", "A -> ε" or "A -> "),
+    // the left side of the first production is the start symbol
+    public static CompiledAutomaton compile(String[] productions) {
+        if (productions.length == 0) {
+            throw new IllegalArgumentException("The grammar has no productions");
+        }
+        Map<Character, List<String>> rules = new LinkedHashMap<>();
+        for (String production : productions) {
+            int arrow = production.indexOf("->");
+            if (arrow < 0) {
+                throw new IllegalArgumentException("Missing '->' in production: " + production);
+            }
+            String leftSide = production.substring(0, arrow).trim();
+            String rightSide = production.substring(arrow + 2).trim();
+            if (leftSide.length() != 1) {
+                throw new IllegalArgumentException("Not right-linear, the left side must be one non-terminal: " + production);
+            }
+            rules.computeIfAbsent(leftSide.charAt(0), symbol -> new ArrayList<>()).add(rightSide.equals("ε") ? "" : rightSide);
+        }
+        return compile(rules, rules.keySet().iterator().next());
+    }
+
+    public static CompiledAutomaton compile(Map<Character, List<String>> rules, char startSymbol) {
+        // A -> B is folded away: A gets every other production of each non-terminal it reaches through such rules
+        Map<Character, Set<Character>> unitClosure = new HashMap<>();
+        for (char symbol : rules.keySet()) {
+            Set<Character> reached = new LinkedHashSet<>();
+            Deque<Character> pending = new ArrayDeque<>(List.of(symbol));
+            while (!pending.isEmpty()) {
+                char current = pending.poll();
+                if (reached.add(current)) {
+                    for (String production : rules.getOrDefault(current, List.of())) {
+                        if (production.length() == 1 && rules.containsKey(production.charAt(0))) {
+                            pending.add(production.charAt(0));
+                        }
+                    }
+                }
+            }
+            unitClosure.put(symbol, reached);
+        }
+
+        Map<String, Map<Character, List<String>>> nfa = new LinkedHashMap<>();
+        Set<String> acceptingStates = new HashSet<>();
+        acceptingStates.add(FINAL_STATE);
+        for (char symbol : rules.keySet()) {
+            String state = String.valueOf(symbol);
+            nfa.putIfAbsent(state, new HashMap<>());
+            int index = 0;
+            for (char reached : unitClosure.get(symbol)) {
+                for (String production : rules.get(reached)) {
+                    if (production.isEmpty() || production.equals("ε")) {
+                        // A -> ε, the non-terminal itself may end the string
+                        acceptingStates.add(state);
+                        continue;
+                    }
+                    if (production.length() == 1 && rules.containsKey(production.charAt(0))) {
+                        continue;
+                    }
+                    addChain(nfa, rules, symbol, index++, production);
+                }
+            }
+        }
+
+        SubsetConstruction.Result dfa = SubsetConstruction.determinize(nfa, String.valueOf(startSymbol), acceptingStates, SubsetConstruction.NO_LIMIT);
+        return DFAMinimizer.minimize(dfa.getAutomaton());
+    }
+
+    // Adds the path for A -> x1..xk[B]: one state per terminal, ending in B or in the final state
+    private static void addChain(Map<String, Map<Character, List<String>>> nfa, Map<Character, List<String>> rules,
+                                 char symbol, int index, String production) {
+        char last = production.charAt(production.length() - 1);
+        boolean endsInNonTerminal = rules.containsKey(last);
+        int terminalCount = endsInNonTerminal ? production.length() - 1 : production.length();
+        for (int i = 0; i < terminalCount; i++) {
+            if (rules.containsKey(production.charAt(i))) {
+                throw new IllegalArgumentException("Not right-linear, non-terminal " + production.charAt(i)
+                        + " is not at the end of " + symbol + " -> " + production);
+            }
+        }
+
+        String from = String.valueOf(symbol);
+        for (int i = 0; i < terminalCount; i++) {
+            String to;
+            if (i < terminalCount - 1) {
+                to = symbol + "#" + index + "#" + (i + 1);
+            } else {
+                to = endsInNonTerminal ? String.valueOf(last) : FINAL_STATE;
+            }
+            nfa.computeIfAbsent(from, state -> new HashMap<>())
+                    .computeIfAbsent(production.charAt(i), input -> new ArrayList<>())
+                    .add(to);
+            from = to;
+        }
+    }
+}
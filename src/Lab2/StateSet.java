@@ -0,0 +1,57 @@
+package src.Lab2;
+
+import java.util.Arrays;
+
+// Set of NFA state indices packed into a long[] bitmap, used as a hash key for subset states.
+// The hash is computed once, and a probe key can be refilled in place so lookups do not allocate
+final class StateSet {
+    final long[] words;
+    private int hash;
+
+    StateSet(long[] words) {
+        this.words = words;
+        rehash();
+    }
+
+    // Must be called after the words of a probe key change
+    void rehash() {
+        long h = 0x9E3779B97F4A7C15L;
+        for (long word : words) {
+            h = (h ^ word) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        hash = (int) (h ^ (h >>> 32));
+    }
+
+    boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean intersects(long[] set, long[] other) {
+        for (int i = 0; i < set.length; i++) {
+            if ((set[i] & other[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    StateSet copy() {
+        return new StateSet(words.clone());
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof StateSet && hash == ((StateSet) o).hash && Arrays.equals(words, ((StateSet) o).words);
+    }
+}
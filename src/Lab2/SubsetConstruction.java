@@ -0,0 +1,89 @@
+package src.Lab2;
+
+import src.Lab1.CompiledAutomaton;
+
+import java.util.*;
+
+// Worklist subset construction that scales to NFAs with tens of thousands of states.
+// Subset states are long[] bitmaps hashed once, the worklist is the list of discovered subsets itself
+// (DFA state i is expanded after all states before it), so nothing recurses and the stack stays flat
+public class SubsetConstruction {
+    // Passed as maxStates when the number of DFA states should not be limited
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    // A determinized automaton together with the NFA states each DFA state stands for
+    public static final class Result {
+        private final IndexedNFA nfa;
+        private final CompiledAutomaton automaton;
+        private final List<long[]> subsets;
+
+        Result(IndexedNFA nfa, CompiledAutomaton automaton, List<long[]> subsets) {
+            this.nfa = nfa;
+            this.automaton = automaton;
+            this.subsets = subsets;
+        }
+
+        public CompiledAutomaton getAutomaton() {
+            return automaton;
+        }
+
+        public int getStateCount() {
+            return subsets.size();
+        }
+
+        // NFA state names making up the given DFA state
+        public Set<String> getSubset(int dfaState) {
+            return nfa.namesOf(subsets.get(dfaState));
+        }
+    }
+
+    public static Result determinize(Map<String, Map<Character, List<String>>> nfaTransitions, String startState,
+                                     Set<String> acceptingStates, int maxStates) {
+        IndexedNFA nfa = new IndexedNFA(nfaTransitions, startState, acceptingStates);
+        int symbolCount = nfa.symbolCount;
+        int words = nfa.wordCount();
+
+        List<long[]> subsets = new ArrayList<>();
+        Map<StateSet, Integer> ids = new HashMap<>();
+        long[] startSet = new long[words];
+        startSet[nfa.start >>> 6] |= 1L << nfa.start;
+        subsets.add(startSet);
+        ids.put(new StateSet(startSet), 0);
+
+        int[] table = new int[Math.max(16, symbolCount)];
+        // The probe is refilled for every step, only subsets seen for the first time are copied
+        StateSet probe = new StateSet(new long[words]);
+        for (int current = 0; current < subsets.size(); current++) {
+            if (table.length < (current + 1) * symbolCount) {
+                table = Arrays.copyOf(table, Math.max(table.length * 2, (current + 1) * symbolCount));
+            }
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                nfa.step(subsets.get(current), symbol, probe.words);
+                if (probe.isEmpty()) {
+                    table[current * symbolCount + symbol] = CompiledAutomaton.DEAD;
+                    continue;
+                }
+                probe.rehash();
+                Integer target = ids.get(probe);
+                if (target == null) {
+                    if (subsets.size() >= maxStates) {
+                        throw new IllegalStateException("Subset construction exceeded the budget of " + maxStates + " DFA states");
+                    }
+                    target = subsets.size();
+                    StateSet discovered = probe.copy();
+                    subsets.add(discovered.words);
+                    ids.put(discovered, target);
+                }
+                table[current * symbolCount + symbol] = target;
+            }
+        }
+
+        boolean[] accepting = new boolean[subsets.size()];
+        for (int state = 0; state < subsets.size(); state++) {
+            accepting[state] = StateSet.intersects(subsets.get(state), nfa.accepting);
+        }
+        CompiledAutomaton automaton = new CompiledAutomaton(nfa.alphabet,
+                Arrays.copyOf(table, subsets.size() * symbolCount), accepting, 0);
+        return new Result(nfa, automaton, subsets);
+    }
+}
@@ -0,0 +1,242 @@
+package src.Lab3;
+
+import java.util.Arrays;
+
+// A lexer generated by LexerGenerator: one minimal DFA whose states are tagged with the rule they accept.
+// Tokenizing is maximal munch, the DFA runs from the token start until it dies and the token ends after the last
+// accepting state it passed. The work per character is one class lookup and one table lookup, however many rules there are.
+// The characters read past the end of a token are read again for the next one. When the rules bound how far a scan
+// can run past an accepting state (the standard rules read at most one character too many, the x of 0x) that costs
+// a constant per token. Otherwise, as for the rules a and a+b over aaaa..., the lexer remembers every (state, position)
+// a scan failed from and stops later scans there, so tokenizing stays linear in the input
+public class DFALexer {
+    // Table entry of a missing transition, the same -1 that DFAMinimizer.equivalenceClasses expects
+    static final int DEAD = -1;
+
+    // Receives the rule index and the position of every token, matches of skip rules are not reported
+    public interface TokenListener {
+        void onToken(int rule, int start, int length);
+    }
+
+    private final String[] ruleNames;
+    private final boolean[] skipped;
+    private final char[] classMap;
+    private final int symbolCount;
+    private final int[] table;
+    private final int[] acceptRule;
+    private final int start;
+    // Some cycle of non-accepting states can be entered after an accepting state, so a scan may run arbitrarily far
+    // past the end of its token
+    private final boolean unboundedLookahead;
+    // TokenType constant of every rule, filled on first use by tokenizeToBuffer
+    private TokenType[] tokenTypes;
+
+    DFALexer(String[] ruleNames, boolean[] skipped, char[] classMap, int symbolCount, int[] table, int[] acceptRule, int start) {
+        this.ruleNames = ruleNames;
+        this.skipped = skipped;
+        this.classMap = classMap;
+        this.symbolCount = symbolCount;
+        this.table = table;
+        this.acceptRule = acceptRule;
+        this.start = start;
+        unboundedLookahead = hasUnboundedLookahead(table, symbolCount, acceptRule);
+    }
+
+    // Looks for a cycle among the non-accepting states reachable from an accepting state through non-accepting states
+    private static boolean hasUnboundedLookahead(int[] table, int symbolCount, int[] acceptRule) {
+        int stateCount = acceptRule.length;
+        boolean[] reached = new boolean[stateCount];
+        int[] queue = new int[stateCount];
+        int queued = 0;
+        for (int state = 0; state < stateCount; state++) {
+            if (acceptRule[state] < 0) {
+                continue;
+            }
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = table[state * symbolCount + symbol];
+                if (next != DEAD && acceptRule[next] < 0 && !reached[next]) {
+                    reached[next] = true;
+                    queue[queued++] = next;
+                }
+            }
+        }
+        for (int i = 0; i < queued; i++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = table[queue[i] * symbolCount + symbol];
+                if (next != DEAD && acceptRule[next] < 0 && !reached[next]) {
+                    reached[next] = true;
+                    queue[queued++] = next;
+                }
+            }
+        }
+        // Kahn's algorithm over the reached states, whatever cannot be ordered lies on or behind a cycle
+        int[] incoming = new int[stateCount];
+        for (int i = 0; i < queued; i++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = table[queue[i] * symbolCount + symbol];
+                if (next != DEAD && reached[next]) {
+                    incoming[next]++;
+                }
+            }
+        }
+        int[] ready = new int[queued];
+        int readyCount = 0;
+        for (int i = 0; i < queued; i++) {
+            if (incoming[queue[i]] == 0) {
+                ready[readyCount++] = queue[i];
+            }
+        }
+        for (int i = 0; i < readyCount; i++) {
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = table[ready[i] * symbolCount + symbol];
+                if (next != DEAD && reached[next] && --incoming[next] == 0) {
+                    ready[readyCount++] = next;
+                }
+            }
+        }
+        return readyCount < queued;
+    }
+
+    // Rules equivalent to the hand-written Lexer, tokenizeToBuffer gives the same tokens as Lexer.tokenizeToBuffer().
+    // The rules are the patterns of the TokenType constants, so token types and rules cannot drift apart
+    public static DFALexer standard() {
+        LexerGenerator generator = new LexerGenerator();
+        for (TokenType type : TokenType.values()) {
+            if (type == TokenType.WHITESPACE) {
+                generator.skip(type.pattern);
+            } else if (type.pattern != null) {
+                generator.rule(type.name(), type.pattern);
+            }
+        }
+        return generator.build();
+    }
+
+    public void tokenize(CharSequence input, TokenListener listener) {
+        int pos = 0;
+        int end = input.length();
+        // failed[state] has bit i set when no accepting state can be reached from state at position i,
+        // a bit set per state is only allocated once a scan fails from that state
+        long[][] failed = unboundedLookahead ? new long[acceptRule.length][] : null;
+        // States a scan passed since its last accepting state, trail[k] at position tokenEnd + k + 1
+        int[] trail = unboundedLookahead ? new int[16] : null;
+        while (pos < end) {
+            int state = start;
+            int rule = -1;
+            int tokenEnd = pos;
+            int trailLength = 0;
+            for (int i = pos; i < end; i++) {
+                state = table[state * symbolCount + classMap[input.charAt(i)]];
+                if (state == DEAD) {
+                    break;
+                }
+                if (acceptRule[state] >= 0) {
+                    rule = acceptRule[state];
+                    tokenEnd = i + 1;
+                    trailLength = 0;
+                } else if (failed != null) {
+                    if (failed[state] != null && (failed[state][(i + 1) >>> 6] & 1L << (i + 1)) != 0) {
+                        break;
+                    }
+                    if (trailLength == trail.length) {
+                        trail = Arrays.copyOf(trail, trailLength * 2);
+                    }
+                    trail[trailLength++] = state;
+                }
+            }
+            if (rule < 0) {
+                throw new RuntimeException("Unexpected character: " + input.charAt(pos));
+            }
+            for (int k = 0; k < trailLength; k++) {
+                int position = tokenEnd + k + 1;
+                if (failed[trail[k]] == null) {
+                    failed[trail[k]] = new long[(end >>> 6) + 1];
+                }
+                failed[trail[k]][position >>> 6] |= 1L << position;
+            }
+            if (!skipped[rule]) {
+                listener.onToken(rule, pos, tokenEnd - pos);
+            }
+            pos = tokenEnd;
+        }
+    }
+
+    // Needs every non-skip rule to be named after a TokenType constant. Identifiers are interned and integer literals
+    // decoded like Lexer does
+    TokenBuffer tokenizeToBuffer(CharSequence input) {
+        TokenType[] types = tokenTypes();
+        TokenBuffer tokens = new TokenBuffer(input);
+        SymbolTable symbols = tokens.getSymbols();
+        tokenize(input, (rule, start, length) ->
+                tokens.add(types[rule], start, length, value(types[rule], input, start, length, symbols)));
+        tokens.add(TokenType.EOF, input.length(), 0);
+        return tokens;
+    }
+
+    // An INTEGER rule has to match only literals Lexer also accepts as integers
+    private static long value(TokenType type, CharSequence input, int start, int length, SymbolTable symbols) {
+        if (type == TokenType.IDENTIFIER) {
+            return symbols.intern(input, start, length);
+        }
+        return type == TokenType.INTEGER ? Lexer.integerValue(input, start, length) : 0;
+    }
+
+    private TokenType[] tokenTypes() {
+        if (tokenTypes == null) {
+            TokenType[] types = new TokenType[ruleNames.length];
+            for (int rule = 0; rule < types.length; rule++) {
+                if (skipped[rule]) {
+                    continue;
+                }
+                try {
+                    types[rule] = TokenType.valueOf(ruleNames[rule]);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalStateException("No TokenType constant for rule " + ruleNames[rule]
+                            + ", use tokenize with a listener or generate the enum with enumSource", e);
+                }
+            }
+            tokenTypes = types;
+        }
+        return tokenTypes;
+    }
+
+    // Java source of an enum with one constant per token rule and EOF last, in rule order
+    public String enumSource(String packageName, String enumName) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n");
+        source.append("// Generated by LexerGenerator, one constant per token rule\n");
+        source.append("enum ").append(enumName).append(" {\n    ");
+        for (int rule = 0; rule < ruleNames.length; rule++) {
+            if (!skipped[rule]) {
+                source.append(ruleNames[rule]).append(", ");
+            }
+        }
+        source.append("EOF\n}\n");
+        return source.toString();
+    }
+
+    public int getRuleCount() {
+        return ruleNames.length;
+    }
+
+    // Empty for skip rules
+    public String getRuleName(int rule) {
+        return ruleNames[rule];
+    }
+
+    public boolean isSkipped(int rule) {
+        return skipped[rule];
+    }
+
+    public int getStateCount() {
+        return acceptRule.length;
+    }
+
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+
+    @Override
+    public String toString() {
+        return "DFALexer with " + ruleNames.length + " rules, " + getStateCount() + " states and " + symbolCount + " character classes";
+    }
+}
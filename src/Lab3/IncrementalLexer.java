@@ -0,0 +1,152 @@
+package src.Lab3;
+
+// Updates a token buffer after an edit without lexing the whole document again.
+// Scanning restarts at the first token the edit can touch and stops as soon as a new token starts where an old token
+// behind the edit started (moved by the change in length): the lexer keeps no state between tokens,
+// so everything from there on is the old stream shifted. The lexing work is proportional to the edited region.
+// The new buffer shares the token chunks before and after it with the previous one, only the chunks the edit falls
+// into are copied, and the chunks behind the edit are moved through their base instead of rewriting every start
+class IncrementalLexer {
+
+    // Replaces deletedLength characters at offset with insertedText
+    static final class Edit {
+        private final int offset;
+        private final int deletedLength;
+        private final String insertedText;
+
+        Edit(int offset, int deletedLength, String insertedText) {
+            if (offset < 0 || deletedLength < 0) {
+                throw new IllegalArgumentException("Invalid edit at " + offset + " deleting " + deletedLength + " characters");
+            }
+            this.offset = offset;
+            this.deletedLength = deletedLength;
+            this.insertedText = insertedText;
+        }
+
+        int getOffset() {
+            return offset;
+        }
+
+        int getDeletedLength() {
+            return deletedLength;
+        }
+
+        String getInsertedText() {
+            return insertedText;
+        }
+
+        String applyTo(CharSequence text) {
+            if (offset + deletedLength > text.length()) {
+                throw new IndexOutOfBoundsException("Edit ends at " + (offset + deletedLength) + " but the text has " + text.length() + " characters");
+            }
+            return new StringBuilder(text.length() - deletedLength + insertedText.length())
+                    .append(text, 0, offset)
+                    .append(insertedText)
+                    .append(text, offset + deletedLength, text.length())
+                    .toString();
+        }
+    }
+
+    // The updated stream and how it differs from the previous one: tokens [firstChanged, firstChanged + removedCount)
+    // of the old stream were replaced by tokens [firstChanged, firstChanged + insertedCount) of the new one,
+    // the tokens after them are the same but start shiftedBy characters later
+    static final class Result {
+        private final TokenBuffer tokens;
+        private final int firstChanged;
+        private final int removedCount;
+        private final int insertedCount;
+        private final int shiftedBy;
+
+        Result(TokenBuffer tokens, int firstChanged, int removedCount, int insertedCount, int shiftedBy) {
+            this.tokens = tokens;
+            this.firstChanged = firstChanged;
+            this.removedCount = removedCount;
+            this.insertedCount = insertedCount;
+            this.shiftedBy = shiftedBy;
+        }
+
+        TokenBuffer getTokens() {
+            return tokens;
+        }
+
+        int getFirstChanged() {
+            return firstChanged;
+        }
+
+        int getRemovedCount() {
+            return removedCount;
+        }
+
+        int getInsertedCount() {
+            return insertedCount;
+        }
+
+        int getShiftedBy() {
+            return shiftedBy;
+        }
+
+        @Override
+        public String toString() {
+            return "Replaced " + removedCount + " tokens at " + firstChanged + " with " + insertedCount
+                    + ", later tokens shifted by " + shiftedBy;
+        }
+    }
+
+    // The updated text is the previous source with the edit applied, as the caller already holds it
+    // (Edit.applyTo builds it for callers that do not).
+    // The result shares the symbol table of the previous buffer, and new identifiers are interned into it, so relexing
+    // changes the table of the previous result too. The table only grows: over an editing session it keeps the names
+    // of identifiers that have since been deleted. Lex the whole text again to start with a table of the current names
+    static Result relex(TokenBuffer previous, Edit edit, CharSequence updated) {
+        int offset = edit.getOffset();
+        int shift = edit.getInsertedText().length() - edit.getDeletedLength();
+        int editEnd = offset + edit.getInsertedText().length();
+
+        // A token ending right at the edit can grow into the inserted text, and the lexer looks two characters past
+        // a 0 for the x and digit of a hexadecimal literal. So the first token that may change is the first one
+        // that does not end more than one character before the edit. The EOF token always qualifies
+        int first = firstEndingAtOrAfter(previous, offset - 1);
+        int restart = Math.min(offset, previous.start(first));
+
+        // New identifiers go into the previous symbol table, so the IDs of unchanged tokens stay valid
+        TokenBuffer tokens = new TokenBuffer(updated, previous.getSymbols());
+        tokens.addRange(previous, 0, first, 0);
+        Lexer lexer = new Lexer(updated, restart, updated.length(), previous.getSymbols());
+        int old = first;
+        while (true) {
+            TokenType type = lexer.nextToken();
+            int start = lexer.tokenStart();
+            if (start >= editEnd) {
+                // Behind the edit, look for an old token that started at the same place
+                while (old < previous.size() && previous.start(old) + shift < start) {
+                    old++;
+                }
+                if (old < previous.size() && previous.start(old) + shift == start) {
+                    int inserted = tokens.size() - first;
+                    tokens.addRange(previous, old, previous.size(), shift);
+                    return new Result(tokens, first, old - first, inserted, shift);
+                }
+            }
+            tokens.add(type, start, lexer.position() - start, lexer.value());
+            if (type == TokenType.EOF) {
+                // Only reached when the previous buffer was not the stream of the edited text's original
+                return new Result(tokens, first, previous.size() - first, tokens.size() - first, shift);
+            }
+        }
+    }
+
+    // Binary search over the token ends, which grow with the token index
+    private static int firstEndingAtOrAfter(TokenBuffer tokens, int offset) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.start(middle) + tokens.length(middle) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
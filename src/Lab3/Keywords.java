@@ -0,0 +1,137 @@
+package src.Lab3;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+// A fixed set of reserved words, compiled into a perfect hash table when it is created: no two keywords share a slot,
+// so checking a scanned name takes one hash over its characters, one slot and at most one comparison, without
+// allocating. Names shorter or longer than every keyword are rejected before hashing.
+// The ID of a keyword is its position in the list it was created from
+final class Keywords {
+    static final Keywords NONE = new Keywords(new String[0], 0, 31, new int[2], Integer.MAX_VALUE, -1);
+
+    // Multipliers tried for a table size before the table is doubled
+    private static final int SEEDS_PER_SIZE = 1000;
+
+    private final String[] names;
+    private final int seed;
+    private final int shift;
+    // Keyword ID + 1 in the slot its name hashes to, 0 when empty
+    private final int[] slots;
+    private final int minLength;
+    private final int maxLength;
+
+    private Keywords(String[] names, int seed, int shift, int[] slots, int minLength, int maxLength) {
+        this.names = names;
+        this.seed = seed;
+        this.shift = shift;
+        this.slots = slots;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+    }
+
+    // Every keyword has to be lexed as a whole identifier: a letter followed by letters and digits
+    static Keywords of(String... keywords) {
+        if (keywords.length == 0) {
+            return NONE;
+        }
+        String[] names = keywords.clone();
+        Set<String> seen = new HashSet<>();
+        int minLength = Integer.MAX_VALUE;
+        int maxLength = 0;
+        for (String name : names) {
+            if (!isIdentifier(name)) {
+                throw new IllegalArgumentException("Keyword is not an identifier: '" + name + "'");
+            }
+            if (!seen.add(name)) {
+                throw new IllegalArgumentException("Duplicate keyword: " + name);
+            }
+            minLength = Math.min(minLength, name.length());
+            maxLength = Math.max(maxLength, name.length());
+        }
+
+        // Start at twice as many slots as keywords and search for a multiplier that spreads them without collisions.
+        // The search is seeded, so a keyword set always compiles to the same table
+        int bits = 32 - Integer.numberOfLeadingZeros(names.length * 2 - 1);
+        for (; bits <= 30; bits++) {
+            Random random = new Random(bits);
+            for (int attempt = 0; attempt < SEEDS_PER_SIZE; attempt++) {
+                int seed = random.nextInt() | 1;
+                int[] slots = place(names, seed, 32 - bits);
+                if (slots != null) {
+                    return new Keywords(names, seed, 32 - bits, slots, minLength, maxLength);
+                }
+            }
+        }
+        throw new IllegalArgumentException("No perfect hash found for keywords " + Arrays.toString(names));
+    }
+
+    // ID of the keyword spelled by source[start, start + length), or -1 when it is not a keyword
+    int find(CharSequence source, int start, int length) {
+        if (length < minLength || length > maxLength) {
+            return -1;
+        }
+        int id = slots[hash(source, start, length, seed) >>> shift] - 1;
+        return id >= 0 && matches(names[id], source, start, length) ? id : -1;
+    }
+
+    String name(int id) {
+        if (id < 0 || id >= names.length) {
+            throw new IndexOutOfBoundsException("No keyword with ID " + id);
+        }
+        return names[id];
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    // The slot table for a multiplier, or null when two keywords land in the same slot
+    private static int[] place(String[] names, int seed, int shift) {
+        int[] slots = new int[1 << (32 - shift)];
+        for (int id = 0; id < names.length; id++) {
+            int slot = hash(names[id], 0, names[id].length(), seed) >>> shift;
+            if (slots[slot] != 0) {
+                return null;
+            }
+            slots[slot] = id + 1;
+        }
+        return slots;
+    }
+
+    // Multiplicative hash, the slot is taken from the top bits, which depend on every character
+    private static int hash(CharSequence source, int start, int length, int seed) {
+        int hash = length;
+        for (int i = start; i < start + length; i++) {
+            hash = (hash + source.charAt(i)) * seed;
+        }
+        return hash;
+    }
+
+    private static boolean matches(String name, CharSequence source, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIdentifier(String name) {
+        if (name.isEmpty() || Lexer.classOf(name.charAt(0)) != Lexer.LETTER) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            byte charClass = Lexer.classOf(name.charAt(i));
+            if (charClass != Lexer.LETTER && charClass != Lexer.DIGIT) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
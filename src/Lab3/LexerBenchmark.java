@@ -0,0 +1,132 @@
+package src.Lab3;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+// Measures lexer throughput in tokens per second on generated multi-megabyte sources
+public class LexerBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final Keywords KEYWORDS = Keywords.of("if", "else", "while", "for", "do", "let", "var", "return",
+            "break", "continue", "true", "false");
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 8 << 20;
+        String input = generateSource(size, new Random(42));
+        System.out.printf("Input: %.1f MB%n", input.length() / (1024.0 * 1024.0));
+
+        measure("tokenize()", input, () -> new Lexer(input).tokenize().size());
+        measure("tokenizeToBuffer()", input, () -> new Lexer(input).tokenizeToBuffer().size());
+        measure("ParallelLexer.tokenize()", input, () -> ParallelLexer.tokenize(input).size());
+        DFALexer generated = DFALexer.standard();
+        measure("DFALexer.tokenizeToBuffer()", input, () -> generated.tokenizeToBuffer(input).size());
+
+        compareScanning(input);
+
+        // Indented code with long names and numbers, where whitespace, identifier and digit runs are long
+        String longRuns = generateLongRuns(size, new Random(42));
+        System.out.printf("Long runs input: %.1f MB%n", longRuns.length() / (1024.0 * 1024.0));
+        measure("tokenizeToBuffer()", longRuns, () -> new Lexer(longRuns).tokenizeToBuffer().size());
+        compareScanning(longRuns);
+
+        // Control flow where about a third of the names are keywords, lexed with and without the keyword set
+        String keywordHeavy = generateKeywordSource(size, new Random(42));
+        System.out.printf("Keyword input: %.1f MB%n", keywordHeavy.length() / (1024.0 * 1024.0));
+        measure("tokenizeToBuffer() without keywords", keywordHeavy, () -> new Lexer(keywordHeavy).tokenizeToBuffer().size());
+        measure("tokenizeToBuffer() with keywords", keywordHeavy,
+                () -> new Lexer(keywordHeavy, KEYWORDS).tokenizeToBuffer().size());
+    }
+
+    // The source as bytes, lexed one character at a time and with word scanning for long runs
+    static void compareScanning(String input) {
+        byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+        measure("tokenizeToBuffer() over bytes", input, () -> new Lexer(bytes, false).tokenizeToBuffer().size());
+        measure("tokenizeToBuffer() over bytes, word scanning", input, () -> new Lexer(bytes, true).tokenizeToBuffer().size());
+    }
+
+    // Runs one lexing mode repeatedly, the task returns the number of tokens it produced
+    static void measure(String name, String input, IntSupplier task) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            task.getAsInt();
+        }
+        long tokens = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            tokens += task.getAsInt();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %.1f M tokens/s, %.1f MB/s%n",
+                name, tokens / seconds / 1e6, (double) input.length() * MEASURED_ROUNDS / seconds / (1024 * 1024));
+    }
+
+    // Assignment-like statements mixing identifiers, numbers, operators, punctuation and separators
+    static String generateSource(int size, Random random) {
+        String[] operators = {"+", "-", "*", "/", "%", "=", ">", "<"};
+        String[] separators = {"(", ")", "{", "}", "[", "]"};
+        StringBuilder source = new StringBuilder(size + 64);
+        while (source.length() < size) {
+            source.append(identifier(random)).append(" = ");
+            int terms = 1 + random.nextInt(6);
+            for (int i = 0; i < terms; i++) {
+                if (i > 0) {
+                    source.append(' ').append(operators[random.nextInt(operators.length)]).append(' ');
+                }
+                if (random.nextInt(6) == 0) {
+                    source.append(separators[0]).append(identifier(random)).append(separators[1]);
+                } else if (random.nextBoolean()) {
+                    source.append(random.nextInt(100000));
+                } else {
+                    source.append(identifier(random));
+                }
+            }
+            source.append(random.nextInt(8) == 0 ? ",\n" : ";\n");
+            if (random.nextInt(16) == 0) {
+                source.append(separators[2 + random.nextInt(4)]).append('\t');
+            }
+        }
+        return source.toString();
+    }
+
+    static String generateLongRuns(int size, Random random) {
+        StringBuilder source = new StringBuilder(size + 256);
+        while (source.length() < size) {
+            source.append("                ");
+            int length = 30 + random.nextInt(30);
+            for (int i = 0; i < length; i++) {
+                source.append((char) ('a' + random.nextInt(26)));
+            }
+            source.append(" = ");
+            for (int i = 0; i < 18; i++) {
+                source.append(random.nextInt(10));
+            }
+            source.append(";\n");
+        }
+        return source.toString();
+    }
+
+    static String generateKeywordSource(int size, Random random) {
+        String[] conditions = {"if", "while"};
+        StringBuilder source = new StringBuilder(size + 128);
+        while (source.length() < size) {
+            source.append(conditions[random.nextInt(conditions.length)]).append(" (")
+                    .append(identifier(random)).append(" < ").append(random.nextInt(1000)).append(") {\n    ")
+                    .append(random.nextBoolean() ? "let " : "var ").append(identifier(random)).append(" = ")
+                    .append(random.nextBoolean() ? "true" : identifier(random)).append(";\n");
+            source.append(random.nextInt(4) == 0 ? "    break;\n} else {\n    return false;\n}\n" : "}\n");
+        }
+        return source.toString();
+    }
+
+    private static String identifier(Random random) {
+        StringBuilder name = new StringBuilder();
+        int length = 1 + random.nextInt(10);
+        for (int i = 0; i < length; i++) {
+            name.append((char) ('a' + random.nextInt(26)));
+        }
+        if (random.nextInt(4) == 0) {
+            name.append(random.nextInt(100));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,484 @@
+package src.Lab3;
+
+import src.Lab2.DFAMinimizer;
+
+import java.util.*;
+
+// Builds a table-driven lexer from token rules written as regular expressions.
+// Every rule becomes a Thompson NFA, the NFAs share one start state, and the combined NFA is determinized and
+// minimized. Every DFA state is tagged with the rule it accepts, the earliest declared rule wins when several
+// accept the same text. Characters that no rule tells apart share one input column of the table.
+//
+// Supported syntax: literals, . (any character but a line feed), [...] and [^...] classes with ranges,
+// grouping with (...), alternation |, the quantifiers * + ?, and the escapes \n \t \r,
+// \d (Character.isDigit), \s (Character.isWhitespace) and \p{L} (Character.isLetter). Any other escaped
+// character stands for itself
+public class LexerGenerator {
+    private final List<String> names = new ArrayList<>();
+    private final List<String> patterns = new ArrayList<>();
+    private final List<Boolean> skipped = new ArrayList<>();
+
+    public static void main(String[] args) {
+        DFALexer lexer = new LexerGenerator()
+                .rule("ARROW", "->")
+                .rule("COMPARISON", "==|!=|<=|>=|<|>")
+                .rule("ASSIGN", "=")
+                .rule("OPERATOR", "[-+*/%]")
+                .rule("INTEGER", "\\d+")
+                .rule("IDENTIFIER", "\\p{L}[\\p{L}\\d]*")
+                .rule("SEPARATORS", "[(){}\\[\\];,]")
+                .skip("\\s+")
+                .build();
+        System.out.println(lexer.enumSource("src.Lab3", "TokenType"));
+        String input = "f(x) -> x <= 10 == y >= -3";
+        lexer.tokenize(input, (rule, start, length) ->
+                System.out.println(lexer.getRuleName(rule) + "('" + input.substring(start, start + length) + "')"));
+        System.out.println(lexer);
+    }
+
+    // Adds a token rule, rules added earlier win ties between matches of the same length
+    public LexerGenerator rule(String name, String regex) {
+        if (!isJavaIdentifier(name)) {
+            throw new IllegalArgumentException("Rule name must be a Java identifier: " + name);
+        }
+        if (names.contains(name) || name.equals("EOF")) {
+            throw new IllegalArgumentException("Duplicate rule name: " + name);
+        }
+        return add(name, regex, false);
+    }
+
+    // Adds a rule whose matches are consumed without producing tokens, like whitespace or comments
+    public LexerGenerator skip(String regex) {
+        return add("", regex, true);
+    }
+
+    private LexerGenerator add(String name, String regex, boolean skip) {
+        names.add(name);
+        patterns.add(regex);
+        skipped.add(skip);
+        return this;
+    }
+
+    public DFALexer build() {
+        Nfa nfa = new Nfa();
+        int start = nfa.newState();
+        int fork = start;
+        for (int rule = 0; rule < patterns.size(); rule++) {
+            int[] fragment = new RegexParser(patterns.get(rule), nfa).parse();
+            nfa.accept(fragment[1], rule);
+            // Thompson states have two epsilon slots, so the rules hang off a chain of fork states
+            int next = nfa.newState();
+            nfa.epsilon(fork, fragment[0]);
+            nfa.epsilon(fork, next);
+            fork = next;
+        }
+
+        char[] classMap = new char[Character.MAX_VALUE + 1];
+        int symbolCount = partition(nfa.sets, classMap);
+        List<BitSet> classesOfSet = new ArrayList<>();
+        for (BitSet set : nfa.sets) {
+            BitSet classes = new BitSet(symbolCount);
+            for (int c = set.nextSetBit(0); c >= 0; c = set.nextSetBit(c + 1)) {
+                classes.set(classMap[c]);
+            }
+            classesOfSet.add(classes);
+        }
+
+        // Subset construction, every DFA state is the epsilon closure of a set of NFA states
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> subsets = new ArrayList<>();
+        int[] table = new int[16 * symbolCount];
+        BitSet initial = nfa.closure(singleton(start));
+        ids.put(initial, 0);
+        subsets.add(initial);
+        for (int state = 0; state < subsets.size(); state++) {
+            BitSet[] moves = new BitSet[symbolCount];
+            BitSet subset = subsets.get(state);
+            for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+                if (nfa.edgeSet[s] < 0) {
+                    continue;
+                }
+                BitSet classes = classesOfSet.get(nfa.edgeSet[s]);
+                for (int symbol = classes.nextSetBit(0); symbol >= 0; symbol = classes.nextSetBit(symbol + 1)) {
+                    if (moves[symbol] == null) {
+                        moves[symbol] = new BitSet();
+                    }
+                    moves[symbol].set(nfa.edgeTarget[s]);
+                }
+            }
+            if ((state + 1) * symbolCount > table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = DFALexer.DEAD;
+                if (moves[symbol] != null) {
+                    BitSet closure = nfa.closure(moves[symbol]);
+                    Integer id = ids.get(closure);
+                    if (id == null) {
+                        id = subsets.size();
+                        ids.put(closure, id);
+                        subsets.add(closure);
+                    }
+                    target = id;
+                }
+                table[state * symbolCount + symbol] = target;
+            }
+        }
+
+        // Label every state with its rule + 1, 0 for states that accept nothing
+        int stateCount = subsets.size();
+        int[] labels = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            BitSet subset = subsets.get(state);
+            int best = Integer.MAX_VALUE;
+            for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+                if (nfa.acceptRule[s] >= 0) {
+                    best = Math.min(best, nfa.acceptRule[s]);
+                }
+            }
+            labels[state] = best == Integer.MAX_VALUE ? 0 : best + 1;
+        }
+        if (labels[0] != 0) {
+            throw new IllegalArgumentException("Rule " + describe(labels[0] - 1) + " matches the empty string");
+        }
+
+        // Merge states that accept the same rules on the same suffixes
+        int[] classes = DFAMinimizer.equivalenceClasses(stateCount, symbolCount, table, labels);
+        int minimalCount = 0;
+        for (int c : classes) {
+            minimalCount = Math.max(minimalCount, c + 1);
+        }
+        int[] minimalTable = new int[Math.max(minimalCount, 1) * symbolCount];
+        int[] acceptRule = new int[Math.max(minimalCount, 1)];
+        Arrays.fill(minimalTable, DFALexer.DEAD);
+        Arrays.fill(acceptRule, -1);
+        for (int state = 0; state < stateCount; state++) {
+            int id = classes[state];
+            if (id == DFALexer.DEAD) {
+                continue;
+            }
+            acceptRule[id] = labels[state] - 1;
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = table[state * symbolCount + symbol];
+                minimalTable[id * symbolCount + symbol] = target == DFALexer.DEAD ? DFALexer.DEAD : classes[target];
+            }
+        }
+        // With no rule able to match anything the start state is dead, an unused state 0 takes its place
+        int minimalStart = classes[0] == DFALexer.DEAD ? 0 : classes[0];
+
+        boolean[] skip = new boolean[skipped.size()];
+        for (int rule = 0; rule < skip.length; rule++) {
+            skip[rule] = skipped.get(rule);
+        }
+        return new DFALexer(names.toArray(new String[0]), skip, classMap, symbolCount, minimalTable, acceptRule, minimalStart);
+    }
+
+    // Splits the characters into classes that every set either fully contains or fully excludes.
+    // Fills classMap with the class of every character and returns the number of classes
+    private static int partition(List<BitSet> sets, char[] classMap) {
+        int classCount = 1;
+        for (BitSet set : sets) {
+            // Characters of class c inside the set move to the class split[c]
+            int[] split = new int[classCount];
+            Arrays.fill(split, -1);
+            int next = classCount;
+            for (int c = set.nextSetBit(0); c >= 0; c = set.nextSetBit(c + 1)) {
+                int old = classMap[c];
+                if (split[old] < 0) {
+                    split[old] = next++;
+                }
+                classMap[c] = (char) split[old];
+            }
+            classCount = compact(classMap, next);
+        }
+        return classCount;
+    }
+
+    // Renumbers the classes in use to 0..n-1, classes emptied by a split disappear
+    private static int compact(char[] classMap, int classCount) {
+        int[] newId = new int[classCount];
+        Arrays.fill(newId, -1);
+        int count = 0;
+        for (int c = 0; c < classMap.length; c++) {
+            if (newId[classMap[c]] < 0) {
+                newId[classMap[c]] = count++;
+            }
+            classMap[c] = (char) newId[classMap[c]];
+        }
+        return count;
+    }
+
+    private String describe(int rule) {
+        return skipped.get(rule) ? "skip(" + patterns.get(rule) + ")" : names.get(rule);
+    }
+
+    private static BitSet singleton(int state) {
+        BitSet set = new BitSet();
+        set.set(state);
+        return set;
+    }
+
+    private static boolean isJavaIdentifier(String name) {
+        if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Thompson NFA: a state has at most one character set edge and at most two epsilon edges
+    private static final class Nfa {
+        final List<BitSet> sets = new ArrayList<>();
+        int[] edgeSet = new int[64];
+        int[] edgeTarget = new int[64];
+        int[] epsilon1 = new int[64];
+        int[] epsilon2 = new int[64];
+        int[] acceptRule = new int[64];
+        int size;
+
+        int newState() {
+            if (size == edgeSet.length) {
+                edgeSet = Arrays.copyOf(edgeSet, size * 2);
+                edgeTarget = Arrays.copyOf(edgeTarget, size * 2);
+                epsilon1 = Arrays.copyOf(epsilon1, size * 2);
+                epsilon2 = Arrays.copyOf(epsilon2, size * 2);
+                acceptRule = Arrays.copyOf(acceptRule, size * 2);
+            }
+            edgeSet[size] = -1;
+            epsilon1[size] = -1;
+            epsilon2[size] = -1;
+            acceptRule[size] = -1;
+            return size++;
+        }
+
+        void edge(int from, BitSet set, int to) {
+            edgeSet[from] = sets.size();
+            edgeTarget[from] = to;
+            sets.add(set);
+        }
+
+        void epsilon(int from, int to) {
+            if (epsilon1[from] < 0) {
+                epsilon1[from] = to;
+            } else {
+                epsilon2[from] = to;
+            }
+        }
+
+        void accept(int state, int rule) {
+            acceptRule[state] = rule;
+        }
+
+        BitSet closure(BitSet states) {
+            BitSet closure = (BitSet) states.clone();
+            int[] stack = new int[size];
+            int top = 0;
+            for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+                stack[top++] = s;
+            }
+            while (top > 0) {
+                int s = stack[--top];
+                for (int target : new int[]{epsilon1[s], epsilon2[s]}) {
+                    if (target >= 0 && !closure.get(target)) {
+                        closure.set(target);
+                        stack[top++] = target;
+                    }
+                }
+            }
+            return closure;
+        }
+    }
+
+    // Recursive descent over the regex, building Thompson fragments as {start, end} state pairs
+    private static final class RegexParser {
+        private final String regex;
+        private final Nfa nfa;
+        private int pos;
+
+        RegexParser(String regex, Nfa nfa) {
+            this.regex = regex;
+            this.nfa = nfa;
+        }
+
+        int[] parse() {
+            int[] fragment = alternation();
+            if (pos < regex.length()) {
+                throw error("Unmatched ')'");
+            }
+            return fragment;
+        }
+
+        private int[] alternation() {
+            int[] fragment = concatenation();
+            while (pos < regex.length() && regex.charAt(pos) == '|') {
+                pos++;
+                int[] other = concatenation();
+                int start = nfa.newState();
+                int end = nfa.newState();
+                nfa.epsilon(start, fragment[0]);
+                nfa.epsilon(start, other[0]);
+                nfa.epsilon(fragment[1], end);
+                nfa.epsilon(other[1], end);
+                fragment = new int[]{start, end};
+            }
+            return fragment;
+        }
+
+        private int[] concatenation() {
+            int state = nfa.newState();
+            int[] fragment = {state, state};
+            while (pos < regex.length() && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+                int[] next = repetition();
+                nfa.epsilon(fragment[1], next[0]);
+                fragment[1] = next[1];
+            }
+            return fragment;
+        }
+
+        private int[] repetition() {
+            int[] fragment = atom();
+            while (pos < regex.length() && "*+?".indexOf(regex.charAt(pos)) >= 0) {
+                char quantifier = regex.charAt(pos++);
+                int start = nfa.newState();
+                int end = nfa.newState();
+                nfa.epsilon(start, fragment[0]);
+                if (quantifier != '+') {
+                    nfa.epsilon(start, end);
+                }
+                if (quantifier != '?') {
+                    nfa.epsilon(fragment[1], fragment[0]);
+                }
+                nfa.epsilon(fragment[1], end);
+                fragment = new int[]{start, end};
+            }
+            return fragment;
+        }
+
+        private int[] atom() {
+            char c = regex.charAt(pos++);
+            BitSet set;
+            switch (c) {
+                case '(':
+                    int[] group = alternation();
+                    if (pos >= regex.length() || regex.charAt(pos) != ')') {
+                        throw error("Missing ')'");
+                    }
+                    pos++;
+                    return group;
+                case '[':
+                    set = characterClass();
+                    break;
+                case '.':
+                    set = new BitSet();
+                    set.set(0, Character.MAX_VALUE + 1);
+                    set.clear('\n');
+                    break;
+                case '\\':
+                    set = escape();
+                    break;
+                case '*':
+                case '+':
+                case '?':
+                    throw error("Nothing to repeat");
+                default:
+                    set = new BitSet();
+                    set.set(c);
+            }
+            int start = nfa.newState();
+            int end = nfa.newState();
+            nfa.edge(start, set, end);
+            return new int[]{start, end};
+        }
+
+        private BitSet characterClass() {
+            BitSet set = new BitSet();
+            boolean negated = pos < regex.length() && regex.charAt(pos) == '^';
+            if (negated) {
+                pos++;
+            }
+            boolean first = true;
+            while (pos < regex.length() && (regex.charAt(pos) != ']' || first)) {
+                first = false;
+                char c = regex.charAt(pos++);
+                if (c == '\\') {
+                    BitSet escaped = escape();
+                    if (escaped.cardinality() != 1 || pos >= regex.length() || regex.charAt(pos) != '-') {
+                        set.or(escaped);
+                        continue;
+                    }
+                    c = (char) escaped.nextSetBit(0);
+                }
+                if (pos + 1 < regex.length() && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    char last = regex.charAt(pos++);
+                    if (last == '\\') {
+                        last = (char) escape().nextSetBit(0);
+                    }
+                    if (last < c) {
+                        throw error("Empty range " + c + "-" + last);
+                    }
+                    set.set(c, last + 1);
+                } else {
+                    set.set(c);
+                }
+            }
+            if (pos >= regex.length()) {
+                throw error("Missing ']'");
+            }
+            pos++;
+            if (negated) {
+                set.flip(0, Character.MAX_VALUE + 1);
+            }
+            return set;
+        }
+
+        private BitSet escape() {
+            if (pos >= regex.length()) {
+                throw error("Trailing '\\'");
+            }
+            char c = regex.charAt(pos++);
+            BitSet set = new BitSet();
+            switch (c) {
+                case 'd':
+                case 's':
+                    for (int ch = 0; ch <= Character.MAX_VALUE; ch++) {
+                        if (c == 'd' ? Character.isDigit(ch) : Character.isWhitespace(ch)) {
+                            set.set(ch);
+                        }
+                    }
+                    return set;
+                case 'p':
+                    if (!regex.startsWith("{L}", pos)) {
+                        throw error("Only \\p{L} is supported");
+                    }
+                    pos += 3;
+                    for (int ch = 0; ch <= Character.MAX_VALUE; ch++) {
+                        if (Character.isLetter(ch)) {
+                            set.set(ch);
+                        }
+                    }
+                    return set;
+                case 'n':
+                    set.set('\n');
+                    return set;
+                case 't':
+                    set.set('\t');
+                    return set;
+                case 'r':
+                    set.set('\r');
+                    return set;
+                default:
+                    set.set(c);
+                    return set;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in regex " + regex);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package src.Lab3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+// Lexes a large input on all cores. No token contains whitespace, so the lexer can start over at any whitespace
+// character: the input is cut into chunks just after whitespace, every chunk is lexed into its own token buffer
+// and the buffers are joined in order. Every chunk interns its identifiers into its own symbol table, the tables are
+// merged in chunk order afterwards, so symbol IDs also come out as in Lexer.tokenizeToBuffer()
+class ParallelLexer {
+    // Inputs are split into chunks of about this many characters
+    static final int CHUNK_SIZE = 1 << 20;
+
+    static TokenBuffer tokenize(CharSequence input) {
+        return tokenize(input, Keywords.NONE, ForkJoinPool.commonPool());
+    }
+
+    static TokenBuffer tokenize(CharSequence input, Keywords keywords) {
+        return tokenize(input, keywords, ForkJoinPool.commonPool());
+    }
+
+    static TokenBuffer tokenize(CharSequence input, Keywords keywords, ForkJoinPool pool) {
+        int[] bounds = chunkBounds(input);
+        int chunks = bounds.length - 1;
+        if (chunks <= 1) {
+            return new Lexer(input, keywords).tokenizeToBuffer();
+        }
+        TokenBuffer[] parts = new TokenBuffer[chunks + 1];
+        RuntimeException[] errors = new RuntimeException[chunks];
+        pool.invoke(new ChunkTask(input, keywords, bounds, 0, chunks, parts, errors));
+        // Report the error the sequential lexer would have hit first
+        for (RuntimeException error : errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        // Number the names by first appearance over the whole input, then renumber every chunk in parallel
+        SymbolTable symbols = new SymbolTable(keywords);
+        int[][] remaps = new int[chunks][];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            SymbolTable local = parts[chunk].getSymbols();
+            remaps[chunk] = new int[local.size()];
+            for (int id = 0; id < local.size(); id++) {
+                remaps[chunk][id] = symbols.intern(local.name(id));
+            }
+        }
+        IntStream.range(0, chunks).parallel().forEach(chunk -> parts[chunk].remapSymbols(remaps[chunk]));
+
+        parts[chunks] = new TokenBuffer(input, symbols);
+        parts[chunks].add(TokenType.EOF, input.length(), 0);
+        return TokenBuffer.concat(input, symbols, parts);
+    }
+
+    // Chunk i spans [bounds[i], bounds[i + 1]). Each cut is moved forward to the next whitespace character
+    static int[] chunkBounds(CharSequence input) {
+        int length = input.length();
+        List<Integer> cuts = new ArrayList<>();
+        cuts.add(0);
+        int cut = CHUNK_SIZE;
+        while (cut < length) {
+            while (cut < length && Lexer.classOf(input.charAt(cut)) != Lexer.SPACE) {
+                cut++;
+            }
+            if (cut < length) {
+                cuts.add(cut);
+            }
+            cut += CHUNK_SIZE;
+        }
+        cuts.add(length);
+        int[] bounds = new int[cuts.size()];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = cuts.get(i);
+        }
+        return bounds;
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence input;
+        private final Keywords keywords;
+        private final int[] bounds;
+        private final int from;
+        private final int to;
+        private final TokenBuffer[] parts;
+        private final RuntimeException[] errors;
+
+        ChunkTask(CharSequence input, Keywords keywords, int[] bounds, int from, int to, TokenBuffer[] parts,
+                  RuntimeException[] errors) {
+            this.input = input;
+            this.keywords = keywords;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.parts = parts;
+            this.errors = errors;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(input, keywords, bounds, from, middle, parts, errors),
+                        new ChunkTask(input, keywords, bounds, middle, to, parts, errors));
+                return;
+            }
+            TokenBuffer tokens = new TokenBuffer(input, new SymbolTable(keywords));
+            try {
+                new Lexer(input, bounds[from], bounds[from + 1], tokens.getSymbols()).tokenizeInto(tokens);
+            } catch (RuntimeException e) {
+                errors[from] = e;
+            }
+            parts[from] = tokens;
+        }
+    }
+}
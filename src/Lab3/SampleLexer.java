@@ -1,141 +1,454 @@
 package src.Lab3;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Scanner;
 
+// Every token type the lexers produce, with the regular expression DFALexer.standard() generates its rule from.
+// Whitespace is matched but skipped, keywords and EOF have no rule. This enum is written by hand and the standard
+// rules come from it, the other way round from DFALexer.enumSource(), which writes the enum for a custom rule set
 enum TokenType {
-    INTEGER, OPERATOR, PUNCTUATION, WHITESPACE, SEPARATORS, IDENTIFIER, EOF
+    INTEGER("0[xX][0-9a-fA-F]+|\\d+"),
+    OPERATOR("[-+*/%=><]"),
+    PUNCTUATION("[.,?!:;]"),
+    WHITESPACE("\\s+"),
+    SEPARATORS("[(){}\\[\\]\"']"),
+    IDENTIFIER("\\p{L}[\\p{L}\\d]*"),
+    KEYWORD(null),
+    EOF(null);
+
+    final String pattern;
+
+    TokenType(String pattern) {
+        this.pattern = pattern;
+    }
 }
 
+// A token is a view of its characters in the lexer input, the text is only copied out when asked for.
+// Identifiers also carry their ID in the lexer's symbol table, other tokens, keywords included, have symbol -1.
+// Integer literals carry their decoded value in number, it is 0 for other tokens
 class Token {
-    TokenType type;
-    String value;
+    final TokenType type;
+    final int start;
+    final int length;
+    final int symbol;
+    final long number;
+    private final CharSequence source;
+    private String value;
 
-    Token(TokenType type, String value) {
+    Token(TokenType type, CharSequence source, int start, int length) {
+        this(type, source, start, length, -1);
+    }
+
+    Token(TokenType type, CharSequence source, int start, int length, int symbol) {
+        this(type, source, start, length, symbol, 0);
+    }
+
+    Token(TokenType type, CharSequence source, int start, int length, int symbol, long number) {
         this.type = type;
-        this.value = value;
+        this.source = source;
+        this.start = start;
+        this.length = length;
+        this.symbol = symbol;
+        this.number = number;
+    }
+
+    Token(TokenType type, String value) {
+        this(type, value, 0, value.length());
+    }
+
+    String getValue() {
+        if (value == null) {
+            value = source.subSequence(start, start + length).toString();
+        }
+        return value;
+    }
+
+    // Compares the token text without copying it
+    boolean textEquals(String text) {
+        if (text.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     // Overrides the default toString method to print token in a readable format
     @Override
     public String toString() {
-        return type + "('" + value + "')";
+        return type + "('" + getValue() + "')";
     }
 }
 
 // Lexer class responsible for converting a string of characters into a list of tokens
 class Lexer {
-    private final String input;
-    private int pos = 0;
+    // Character classes, the class of an ASCII character picks its token rule with a single table lookup
+    static final byte INVALID = 0;
+    static final byte SPACE = 1;
+    static final byte DIGIT = 2;
+    static final byte LETTER = 3;
+    static final byte OPERATOR = 4;
+    static final byte PUNCTUATION = 5;
+    static final byte SEPARATOR = 6;
+    private static final byte[] ASCII_CLASSES = new byte[128];
+    // Largest value a decimal literal can have before its last digit without overflowing a long
+    private static final long DECIMAL_LIMIT = Long.MAX_VALUE / 10;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    static {
+        for (char c = 0; c < ASCII_CLASSES.length; c++) {
+            ASCII_CLASSES[c] = unicodeClassOf(c);
+        }
+        for (char c : "+-*/%=><".toCharArray()) {
+            ASCII_CLASSES[c] = OPERATOR;
+        }
+        for (char c : ".,?!:;".toCharArray()) {
+            ASCII_CLASSES[c] = PUNCTUATION;
+        }
+        for (char c : ")(}{][\"'".toCharArray()) {
+            ASCII_CLASSES[c] = SEPARATOR;
+        }
+        // The end of input marker never starts or continues a token
+        ASCII_CLASSES['\0'] = INVALID;
+    }
+
+    private final CharSequence input;
+    private final int end;
+    private final SymbolTable symbols;
+    private final Keywords keywords;
+    // The input bytes when word scanning is on, null otherwise
+    private final byte[] words;
+    private int pos;
+    private int tokenStart;
+    // Value of the last token: the symbol ID of an identifier, the keyword ID of a keyword
+    // or the value of an integer literal
+    private long value;
     private char currentChar;
 
-    // Constructor initializes the lexer with input and sets the first character
-    Lexer(String input) {
-        this.input = input + '\0';
-        currentChar = input.charAt(pos);
+    // Constructor initializes the lexer with input and sets the first character.
+    // The input is not copied, tokens refer to it by offset
+    Lexer(CharSequence input) {
+        this(input, 0, input.length(), new SymbolTable());
+    }
+
+    // Names in the keyword set are lexed as KEYWORD tokens instead of identifiers
+    Lexer(CharSequence input, Keywords keywords) {
+        this(input, 0, input.length(), new SymbolTable(keywords));
+    }
+
+    // Lexes single-byte text (ASCII or ISO-8859-1), such as a source file read as bytes, through a character view
+    // of the bytes that the tokens refer to. With word scanning on, a whitespace or identifier run that is longer
+    // than eight bytes is finished eight bytes per step: a little-endian long is read from the array and every byte
+    // of it is range checked at once with SWAR arithmetic. Shorter runs are scanned one character at a time either way
+    Lexer(byte[] input, boolean wordScanning) {
+        this(new ByteText(input), 0, input.length, new SymbolTable(), wordScanning ? input : null);
+    }
+
+    // Lexes only input[from, to), token offsets stay relative to the whole input.
+    // Identifiers are interned into the given symbol table, keywords are the ones the table holds
+    Lexer(CharSequence input, int from, int to, SymbolTable symbols) {
+        this(input, from, to, symbols, null);
+    }
+
+    private Lexer(CharSequence input, int from, int to, SymbolTable symbols, byte[] words) {
+        this.input = input;
+        this.words = words;
+        this.symbols = symbols;
+        keywords = symbols.getKeywords();
+        end = to;
+        pos = from;
+        currentChar = from < to ? input.charAt(pos) : '\0';
     }
 
     // Advances the position in the input and updates the current character
     void advance() {
         pos++;
-        if (pos >= input.length()) {
+        if (pos >= end) {
             currentChar = '\0'; // End of file
         } else {
             currentChar = input.charAt(pos);
         }
     }
 
+    static byte classOf(char c) {
+        return c < 128 ? ASCII_CLASSES[c] : unicodeClassOf(c);
+    }
+
+    // Slow path for characters outside ASCII, only letters, digits and whitespace are allowed there
+    private static byte unicodeClassOf(char c) {
+        if (Character.isWhitespace(c)) {
+            return SPACE;
+        }
+        if (Character.isDigit(c)) {
+            return DIGIT;
+        }
+        return Character.isLetter(c) ? LETTER : INVALID;
+    }
+
     void skipWhitespace() {
-        while (currentChar != '\0' && Character.isWhitespace(currentChar)) {
+        skipRun(SPACE);
+    }
+
+    // Advances past the run of characters of the given class at the current position. A LETTER run is an identifier
+    // tail, so it also takes digits
+    private void skipRun(byte runClass) {
+        int runStart = pos;
+        while (inRun(classOf(currentChar), runClass)) {
             advance();
+            if (pos - runStart > Long.BYTES && words != null) {
+                pos = wordRunEnd(runClass);
+                currentChar = pos < end ? input.charAt(pos) : '\0';
+            }
         }
     }
 
-    Token integer() {
-        StringBuilder result = new StringBuilder();
-        while (currentChar != '\0' && Character.isDigit(currentChar)) {
-            result.append(currentChar);
-            advance();
+    private static boolean inRun(byte charClass, byte runClass) {
+        return charClass == runClass || runClass == LETTER && charClass == DIGIT;
+    }
+
+    // Skips whole words of the run from the current position and returns the position of the first byte that may not
+    // belong to it. That byte is still checked one at a time, it can be a non-ASCII letter or lie in the last
+    // few bytes of the input
+    private int wordRunEnd(byte runClass) {
+        int at = pos;
+        while (at + Long.BYTES <= end) {
+            long outside = outsideRun((long) LONGS.get(words, at), runClass);
+            if (outside != 0) {
+                // Lowest flagged byte
+                return at + (Long.numberOfTrailingZeros(outside) >>> 3);
+            }
+            at += Long.BYTES;
+        }
+        return at;
+    }
+
+    // High bit set in every byte of the word that is not in the run, bytes above 0x7F are always flagged
+    private static long outsideRun(long word, byte runClass) {
+        long inside;
+        if (runClass == SPACE) {
+            // Tab, line feed, vertical tab, form feed, carriage return, 0x1C-0x1F and space
+            inside = between(word, 0x08, 0x0E) | between(word, 0x1B, 0x21);
+        } else {
+            inside = between(word, '0' - 1, '9' + 1) | between(word, 'A' - 1, 'Z' + 1) | between(word, 'a' - 1, 'z' + 1);
         }
-        return new Token(TokenType.INTEGER, result.toString());
+        return ~inside & HIGH_BITS;
+    }
+
+    // High bit set in every byte b of the word with low < b < high, for 0 <= low < high <= 128.
+    // No byte lane can carry or borrow into the next one, so the test is exact for each byte
+    private static long between(long word, int low, int high) {
+        long low7 = word & LOW_BITS;
+        return (ONES * (127 + high) - low7) & ~word & (low7 + ONES * (127 - low)) & HIGH_BITS;
     }
 
-    Token identifier() {
-        StringBuilder result = new StringBuilder();
-        while (currentChar != '\0' && (Character.isLetterOrDigit(currentChar))) {
-            result.append(currentChar);
+    // The rule methods consume one token starting at the current position and return its type
+
+    // Decimal, or hexadecimal after 0x or 0X. The value is accumulated while the digits are scanned.
+    // Like in Java, a hexadecimal literal may use all 64 bits, so it can decode to a negative value
+    TokenType integer() {
+        long number = 0;
+        if (currentChar == '0' && pos + 2 < end && (input.charAt(pos + 1) | 0x20) == 'x' && hexDigit(input.charAt(pos + 2)) >= 0) {
             advance();
+            advance();
+            for (int digit = hexDigit(currentChar); digit >= 0; digit = hexDigit(currentChar)) {
+                if (number >>> 60 != 0) {
+                    throw outOfRange(tokenStart);
+                }
+                number = number << 4 | digit;
+                advance();
+            }
+        } else {
+            while (classOf(currentChar) == DIGIT) {
+                int digit = decimalDigit(currentChar);
+                if (number >= DECIMAL_LIMIT && (number > DECIMAL_LIMIT || digit > Long.MAX_VALUE % 10)) {
+                    throw outOfRange(tokenStart);
+                }
+                number = number * 10 + digit;
+                advance();
+            }
+        }
+        value = number;
+        return TokenType.INTEGER;
+    }
+
+    // Value of an integer literal the lexer has already matched, for lexers that find the token end first
+    static long integerValue(CharSequence text, int start, int length) {
+        long number = 0;
+        if (length > 2 && text.charAt(start) == '0' && (text.charAt(start + 1) | 0x20) == 'x') {
+            for (int i = start + 2; i < start + length; i++) {
+                if (number >>> 60 != 0) {
+                    throw outOfRange(start);
+                }
+                number = number << 4 | hexDigit(text.charAt(i));
+            }
+            return number;
+        }
+        for (int i = start; i < start + length; i++) {
+            int digit = decimalDigit(text.charAt(i));
+            if (number >= DECIMAL_LIMIT && (number > DECIMAL_LIMIT || digit > Long.MAX_VALUE % 10)) {
+                throw outOfRange(start);
+            }
+            number = number * 10 + digit;
+        }
+        return number;
+    }
+
+    // Value of an ASCII hexadecimal digit, -1 for any other character
+    static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
         }
-        return new Token(TokenType.IDENTIFIER, result.toString());
+        char lower = (char) (c | 0x20);
+        return lower >= 'a' && lower <= 'f' ? lower - 'a' + 10 : -1;
+    }
+
+    // Value of a character of class DIGIT, which may be a non-ASCII decimal digit
+    private static int decimalDigit(char c) {
+        return c < 128 ? c - '0' : Character.digit(c, 10);
     }
 
-    Token operator() {
-        Token token = new Token(TokenType.OPERATOR, Character.toString(currentChar));
+    private static RuntimeException outOfRange(int offset) {
+        return new RuntimeException("Integer literal out of range at offset " + offset);
+    }
+
+    TokenType identifier() {
+        skipRun(LETTER);
+        int keyword = keywords.find(input, tokenStart, pos - tokenStart);
+        if (keyword >= 0) {
+            value = keyword;
+            return TokenType.KEYWORD;
+        }
+        value = symbols.intern(input, tokenStart, pos - tokenStart);
+        return TokenType.IDENTIFIER;
+    }
+
+    TokenType operator() {
         advance();
-        return token;
+        return TokenType.OPERATOR;
     }
 
-    Token punctuation() {
-        Token token = new Token(TokenType.PUNCTUATION, Character.toString(currentChar));
+    TokenType punctuation() {
         advance();
-        return token;
+        return TokenType.PUNCTUATION;
     }
 
-    Token separators() {
-        Token token = new Token(TokenType.SEPARATORS, Character.toString(currentChar));
+    TokenType separators() {
         advance();
-        return token;
+        return TokenType.SEPARATORS;
     }
 
     // Tokenize the entire input string and returns a list of tokens
     List<Token> tokenize() {
-        List<Token> tokens = new ArrayList<>();
+        return tokenizeToBuffer().toList();
+    }
 
-        while (currentChar != '\0') {
-            // Handle different character types to tokenize the input.
-            if (Character.isWhitespace(currentChar)) {
-                skipWhitespace();
-                continue;
-            }
+    // Tokenize the entire input into a primitive token buffer, without creating an object per token
+    TokenBuffer tokenizeToBuffer() {
+        TokenBuffer tokens = new TokenBuffer(input, symbols);
+        tokenizeInto(tokens);
+        // Add an EOF token at the end of the token list
+        tokens.add(TokenType.EOF, end, 0);
+        return tokens;
+    }
 
-            if (Character.isDigit(currentChar)) {
-                tokens.add(integer());
-                continue;
-            }
+    // Appends the tokens up to the end of the input, without an EOF token
+    void tokenizeInto(TokenBuffer tokens) {
+        for (TokenType type = nextToken(); type != TokenType.EOF; type = nextToken()) {
+            tokens.add(type, tokenStart, pos - tokenStart, value);
+        }
+    }
 
-            if (Character.isLetter(currentChar)) {
-                tokens.add(identifier());
-                continue;
-            }
+    // Scans one token and returns its type, EOF once the input is used up.
+    // The token spans [tokenStart(), position())
+    TokenType nextToken() {
+        skipWhitespace();
+        tokenStart = pos;
+        value = 0;
+        if (pos >= end) {
+            return TokenType.EOF;
+        }
+        // Handle different character types to tokenize the input.
+        switch (classOf(currentChar)) {
+            case DIGIT:
+                return integer();
+            case LETTER:
+                return identifier();
+            case OPERATOR:
+                return operator();
+            case PUNCTUATION:
+                return punctuation();
+            case SEPARATOR:
+                return separators();
+            default:
+                // Handle unexpected characters and throw an exception
+                throw new RuntimeException("Unexpected character: " + currentChar);
+        }
+    }
 
-            if (currentChar == '+' || currentChar == '-' || currentChar == '*' || currentChar == '/' || currentChar == '%' || currentChar == '=' || currentChar == '>' || currentChar == '<') {
-                tokens.add(operator());
-                continue;
-            }
+    int tokenStart() {
+        return tokenStart;
+    }
 
-            if (currentChar == '.' || currentChar == ',' || currentChar == '?' || currentChar == '!' || currentChar == ':' || currentChar == ';') {
-                tokens.add(punctuation());
-                continue;
-            }
+    int position() {
+        return pos;
+    }
 
-            if (currentChar == ')' || currentChar == '(' || currentChar == '}' || currentChar == '{' || currentChar == ']' || currentChar == '[' || currentChar == '"' || currentChar == '\'') {
-                tokens.add(separators());
-                continue;
-            }
+    // Value of the token nextToken() returned last
+    long value() {
+        return value;
+    }
+
+    // Bytes read as ISO-8859-1 characters, without decoding them
+    static final class ByteText implements CharSequence {
+        private final byte[] bytes;
 
-            // Handle unexpected characters and throw an exception
-            throw new RuntimeException("Unexpected character: " + currentChar);
+        ByteText(byte[] bytes) {
+            this.bytes = bytes;
         }
 
-        // Add an EOF token at the end of the token list
-        tokens.add(new Token(TokenType.EOF, ""));
-        return tokens;
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
     }
 }
 
 public class SampleLexer {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            // Stream the tokens of the given file, it is never loaded into memory as a whole
+            try (StreamingLexer lexer = StreamingLexer.open(Path.of(args[0]))) {
+                lexer.tokenize((type, offset, text, number) -> System.out.println(type + "('" + text + "')"));
+            }
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         System.out.print("Enter: ");
         String input = scanner.nextLine();
@@ -0,0 +1,316 @@
+package src.Lab3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Pull-based lexer for inputs larger than the heap. Only a fixed-size window of the input is kept in memory:
+// when a token reaches the end of the window, its beginning is moved to the front and the rest is read after it.
+// The window only grows when a single token is longer than it. Produces the same tokens as Lexer.tokenize()
+class StreamingLexer implements Iterator<Token>, Closeable {
+    static final int DEFAULT_WINDOW_SIZE = 1 << 16;
+
+    // Receives every token with its absolute offset in the input. The text is a view of the window
+    // that is only valid during the call, copy it with toString() to keep it. The number is the decoded value
+    // of an integer literal and 0 for other tokens
+    interface TokenListener {
+        void onToken(TokenType type, long offset, CharSequence text, long number);
+    }
+
+    // Like TokenListener, but identifiers are interned into getSymbols() first and symbol is their ID,
+    // -1 for other tokens. The table keeps every distinct name, so memory is no longer bounded by the window
+    interface SymbolListener {
+        void onToken(TokenType type, long offset, CharSequence text, long number, int symbol);
+    }
+
+    private final Reader reader;
+    private char[] window;
+    // Offset in the input of window[0]
+    private long windowOffset;
+    private int limit;
+    private int pos;
+    private int tokenStart;
+    private boolean exhausted;
+    private final WindowText text = new WindowText();
+    private final SymbolTable symbols = new SymbolTable();
+    // Type of the token scanned ahead by hasNext(), null when there is none
+    private TokenType pending;
+    private boolean finished;
+
+    StreamingLexer(Reader reader) {
+        this(reader, DEFAULT_WINDOW_SIZE);
+    }
+
+    StreamingLexer(Reader reader, int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.reader = reader;
+        window = new char[windowSize];
+    }
+
+    StreamingLexer(CharBuffer input) {
+        this(new CharBufferReader(input));
+    }
+
+    // Lexes a UTF-8 file through a memory mapping, decoding it window by window
+    static StreamingLexer open(Path file) throws IOException {
+        return new StreamingLexer(new MappedReader(FileChannel.open(file, StandardOpenOption.READ)));
+    }
+
+    // Pushes every token, the last one being EOF, to the listener and returns how many there were
+    long tokenize(TokenListener listener) throws IOException {
+        long count = 0;
+        TokenType type;
+        do {
+            type = scan();
+            text.length = pos - tokenStart;
+            long number = type == TokenType.INTEGER ? Lexer.integerValue(text, 0, text.length) : 0;
+            listener.onToken(type, windowOffset + tokenStart, text, number);
+            count++;
+        } while (type != TokenType.EOF);
+        return count;
+    }
+
+    long tokenizeWithSymbols(SymbolListener listener) throws IOException {
+        return tokenize((type, offset, text, number) -> listener.onToken(type, offset, text, number,
+                type == TokenType.IDENTIFIER ? symbols.intern(text, 0, text.length()) : -1));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending == null && !finished) {
+            try {
+                pending = scan();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return pending != null;
+    }
+
+    // The token text is copied out of the window, so returned tokens stay valid.
+    // Identifiers are interned, all occurrences of a name share the String in the symbol table
+    @Override
+    public Token next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        TokenType type = pending;
+        pending = null;
+        finished = type == TokenType.EOF;
+        if (type == TokenType.IDENTIFIER) {
+            text.length = pos - tokenStart;
+            int symbol = symbols.intern(text, 0, text.length);
+            return new Token(type, symbols.name(symbol), 0, text.length, symbol);
+        }
+        if (type == TokenType.INTEGER) {
+            text.length = pos - tokenStart;
+            return new Token(type, text.toString(), 0, text.length, -1, Lexer.integerValue(text, 0, text.length));
+        }
+        return new Token(type, new String(window, tokenStart, pos - tokenStart));
+    }
+
+    // The names interned by next() and tokenizeWithSymbols()
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Scans the next token, leaving it in window[tokenStart, pos)
+    private TokenType scan() throws IOException {
+        while (true) {
+            tokenStart = pos;
+            if (pos == limit && !fill()) {
+                return TokenType.EOF;
+            }
+            if (Lexer.classOf(window[pos]) != Lexer.SPACE) {
+                break;
+            }
+            pos++;
+        }
+        char c = window[pos++];
+        switch (Lexer.classOf(c)) {
+            case Lexer.DIGIT:
+                if (c == '0' && hexDigitsAhead()) {
+                    pos += 2;
+                    while ((pos < limit || fill()) && Lexer.hexDigit(window[pos]) >= 0) {
+                        pos++;
+                    }
+                    return TokenType.INTEGER;
+                }
+                while ((pos < limit || fill()) && Lexer.classOf(window[pos]) == Lexer.DIGIT) {
+                    pos++;
+                }
+                return TokenType.INTEGER;
+            case Lexer.LETTER:
+                while ((pos < limit || fill()) && isIdentifierPart(window[pos])) {
+                    pos++;
+                }
+                return TokenType.IDENTIFIER;
+            case Lexer.OPERATOR:
+                return TokenType.OPERATOR;
+            case Lexer.PUNCTUATION:
+                return TokenType.PUNCTUATION;
+            case Lexer.SEPARATOR:
+                return TokenType.SEPARATORS;
+            default:
+                throw new RuntimeException("Unexpected character: " + c);
+        }
+    }
+
+    // Whether the 0 before pos starts a hexadecimal literal: an x or X followed by a hexadecimal digit
+    private boolean hexDigitsAhead() throws IOException {
+        while (pos + 2 > limit) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return (window[pos] | 0x20) == 'x' && Lexer.hexDigit(window[pos + 1]) >= 0;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        byte charClass = Lexer.classOf(c);
+        return charClass == Lexer.LETTER || charClass == Lexer.DIGIT;
+    }
+
+    // Reads more input behind the current token, returns false at the end of the input
+    private boolean fill() throws IOException {
+        if (exhausted) {
+            return false;
+        }
+        // Slide the unfinished token to the front of the window
+        int kept = limit - tokenStart;
+        System.arraycopy(window, tokenStart, window, 0, kept);
+        windowOffset += tokenStart;
+        pos -= tokenStart;
+        tokenStart = 0;
+        limit = kept;
+        if (window.length - limit < 2) {
+            // The token (nearly) fills the whole window. At least two chars must be free, a decoding reader
+            // cannot return half of a surrogate pair
+            window = Arrays.copyOf(window, window.length * 2);
+        }
+        int read;
+        do {
+            read = reader.read(window, limit, window.length - limit);
+        } while (read == 0);
+        if (read < 0) {
+            exhausted = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    // The current token as a CharSequence over the window, reused for every token
+    private final class WindowText implements CharSequence {
+        int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return window[tokenStart + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(window, tokenStart + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(window, tokenStart, length);
+        }
+    }
+
+    private static final class CharBufferReader extends Reader {
+        private final CharBuffer input;
+
+        CharBufferReader(CharBuffer input) {
+            this.input = input;
+        }
+
+        @Override
+        public int read(char[] into, int offset, int length) {
+            if (!input.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, input.remaining());
+            input.get(into, offset, count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Decodes a memory-mapped UTF-8 file, mapping at most 1 GiB at a time
+    private static final class MappedReader extends Reader {
+        private static final long MAP_WINDOW_SIZE = 1L << 30;
+
+        private final FileChannel file;
+        private final long size;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        private MappedByteBuffer region;
+        private long regionStart;
+        private boolean flushed;
+
+        MappedReader(FileChannel file) throws IOException {
+            this.file = file;
+            size = file.size();
+            region = file.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAP_WINDOW_SIZE));
+        }
+
+        @Override
+        public int read(char[] into, int offset, int length) throws IOException {
+            CharBuffer out = CharBuffer.wrap(into, offset, length);
+            while (out.position() == offset && !flushed) {
+                boolean last = regionStart + region.limit() == size;
+                CoderResult result = decoder.decode(region, out, last);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (result.isOverflow()) {
+                    break;
+                }
+                if (last) {
+                    decoder.flush(out);
+                    flushed = true;
+                } else {
+                    // Map the next region, starting with the bytes of a character split by the region end
+                    regionStart += region.position();
+                    region = file.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(size - regionStart, MAP_WINDOW_SIZE));
+                }
+            }
+            int read = out.position() - offset;
+            return read == 0 && flushed ? -1 : read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+}
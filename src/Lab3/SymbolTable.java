@@ -0,0 +1,108 @@
+package src.Lab3;
+
+import java.util.Arrays;
+
+// Interns identifiers: every distinct name gets a dense ID 0, 1, 2... in order of first appearance, so later stages
+// can keep per-variable data in arrays. Names are hashed and compared straight from the input range,
+// a String is only created the first time a name is seen. The keywords of the language are kept with the table
+// but never interned, a keyword gets no symbol ID. Not thread-safe
+class SymbolTable {
+    private final Keywords keywords;
+    // Open addressing with linear probing, a slot holds ID + 1 and 0 when empty
+    private int[] slots = new int[64];
+    private int[] hashes = new int[32];
+    private String[] names = new String[32];
+    private int size;
+
+    SymbolTable() {
+        this(Keywords.NONE);
+    }
+
+    SymbolTable(Keywords keywords) {
+        this.keywords = keywords;
+    }
+
+    int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    int intern(CharSequence source, int start, int length) {
+        int hash = hash(source, start, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return add(source, start, length, hash, slot);
+            }
+            if (hashes[id] == hash && matches(names[id], source, start, length)) {
+                return id;
+            }
+        }
+    }
+
+    String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No symbol with ID " + id);
+        }
+        return names[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    Keywords getKeywords() {
+        return keywords;
+    }
+
+    private int add(CharSequence source, int start, int length, int hash, int slot) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        names[size] = source.subSequence(start, start + length).toString();
+        hashes[size] = hash;
+        slots[slot] = size + 1;
+        size++;
+        // Keep the table at most half full
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    // String.hashCode, then mixed: short names have small, nearly consecutive hash codes that would form
+    // long runs of occupied slots under linear probing
+    private static int hash(CharSequence source, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence source, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,317 @@
+package src.Lab3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Tokens stored column-wise instead of one object per token: a type byte, start/length ints and a long value,
+// 17 bytes a token. The value of an identifier is its ID in the symbol table, the value of a keyword its keyword ID
+// and the value of an integer literal the number it spells.
+// Columns grow in fixed-size chunks, so appending never copies the tokens stored before. A buffer can take whole
+// chunks from another one without copying them: starts are stored relative to a per-chunk base, so the shared
+// columns are never written and a chunk is moved by giving it a different base
+class TokenBuffer {
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final CharSequence source;
+    private final SymbolTable symbols;
+    private byte[][] types = new byte[8][];
+    private int[][] starts = new int[8][];
+    private int[][] lengths = new int[8][];
+    private long[][] values = new long[8][];
+    // Added to the stored starts of each chunk
+    private int[] bases = new int[8];
+    // Index of the first token of each chunk
+    private int[] firstIndexes = new int[8];
+    private int chunkCount;
+    private int size;
+    // Chunk i holds the tokens from index i * CHUNK_SIZE on, so the chunk of an index is found without a search.
+    // Only a buffer that took over a partly filled chunk loses this
+    private boolean aligned = true;
+    // The last chunk belongs to another buffer as well, tokens added after it go into a new chunk
+    private boolean lastShared;
+
+    TokenBuffer(CharSequence source) {
+        this(source, new SymbolTable());
+    }
+
+    TokenBuffer(CharSequence source, SymbolTable symbols) {
+        this.source = source;
+        this.symbols = symbols;
+    }
+
+    // Joins buffers over the same source and symbol table into one, copying the parts in parallel
+    static TokenBuffer concat(CharSequence source, SymbolTable symbols, TokenBuffer[] parts) {
+        TokenBuffer joined = new TokenBuffer(source, symbols);
+        int[] offsets = new int[parts.length];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            offsets[i] = total;
+            total = Math.addExact(total, parts[i].size);
+        }
+        for (int first = 0; first < total; first += CHUNK_SIZE) {
+            joined.allocateChunk(first);
+        }
+        joined.size = total;
+        // Parts write disjoint ranges of the shared chunks
+        IntStream.range(0, parts.length).parallel().forEach(i -> parts[i].copyTo(0, parts[i].size, joined, offsets[i], 0));
+        return joined;
+    }
+
+    // Copies tokens [from, to) into already allocated chunks of target starting at index at, moving their starts by shift
+    private void copyTo(int from, int to, TokenBuffer target, int at, int shift) {
+        for (int index = from; index < to; ) {
+            int sourceChunk = chunkOf(index);
+            int destinationChunk = target.chunkOf(at + index - from);
+            int source = index - firstIndexes[sourceChunk];
+            int destination = at + index - from - target.firstIndexes[destinationChunk];
+            int count = Math.min(Math.min(to, chunkEnd(sourceChunk)) - index, CHUNK_SIZE - destination);
+            System.arraycopy(types[sourceChunk], source, target.types[destinationChunk], destination, count);
+            System.arraycopy(lengths[sourceChunk], source, target.lengths[destinationChunk], destination, count);
+            System.arraycopy(values[sourceChunk], source, target.values[destinationChunk], destination, count);
+            int delta = bases[sourceChunk] + shift - target.bases[destinationChunk];
+            if (delta == 0) {
+                System.arraycopy(starts[sourceChunk], source, target.starts[destinationChunk], destination, count);
+            } else {
+                int[] sourceStarts = starts[sourceChunk];
+                int[] destinationStarts = target.starts[destinationChunk];
+                for (int i = 0; i < count; i++) {
+                    destinationStarts[destination + i] = sourceStarts[source + i] + delta;
+                }
+            }
+            index += count;
+        }
+    }
+
+    // Adds an empty chunk whose first token will have the given index
+    private int allocateChunk(int firstIndex) {
+        int chunk = addChunk(firstIndex);
+        types[chunk] = new byte[CHUNK_SIZE];
+        starts[chunk] = new int[CHUNK_SIZE];
+        lengths[chunk] = new int[CHUNK_SIZE];
+        values[chunk] = new long[CHUNK_SIZE];
+        lastShared = false;
+        return chunk;
+    }
+
+    // Adds a chunk of another buffer, moving its tokens by shift
+    private void shareChunk(TokenBuffer tokens, int chunk, int shift) {
+        int shared = addChunk(size);
+        types[shared] = tokens.types[chunk];
+        starts[shared] = tokens.starts[chunk];
+        lengths[shared] = tokens.lengths[chunk];
+        values[shared] = tokens.values[chunk];
+        bases[shared] = tokens.bases[chunk] + shift;
+        size = Math.addExact(size, tokens.chunkEnd(chunk) - tokens.firstIndexes[chunk]);
+        lastShared = true;
+    }
+
+    private int addChunk(int firstIndex) {
+        int chunk = chunkCount;
+        if (chunk == types.length) {
+            types = Arrays.copyOf(types, chunk * 2);
+            starts = Arrays.copyOf(starts, chunk * 2);
+            lengths = Arrays.copyOf(lengths, chunk * 2);
+            values = Arrays.copyOf(values, chunk * 2);
+            bases = Arrays.copyOf(bases, chunk * 2);
+            firstIndexes = Arrays.copyOf(firstIndexes, chunk * 2);
+        }
+        firstIndexes[chunk] = firstIndex;
+        aligned &= firstIndex == chunk << CHUNK_BITS;
+        chunkCount++;
+        return chunk;
+    }
+
+    // Index the next token would get if the last chunk were filled up, so a new chunk is needed once size reaches it
+    private int chunkLimit() {
+        return chunkCount == 0 || lastShared ? size : firstIndexes[chunkCount - 1] + CHUNK_SIZE;
+    }
+
+    private int chunkEnd(int chunk) {
+        return chunk + 1 < chunkCount ? firstIndexes[chunk + 1] : size;
+    }
+
+    private int chunkOf(int index) {
+        if (aligned) {
+            return index >>> CHUNK_BITS;
+        }
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (firstIndexes[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    void add(TokenType type, int start, int length) {
+        add(type, start, length, 0);
+    }
+
+    void add(TokenType type, int start, int length, long value) {
+        if (size == chunkLimit()) {
+            allocateChunk(size);
+        }
+        // The last chunk is never shared here, so its base is 0
+        int chunk = chunkCount - 1;
+        int offset = size - firstIndexes[chunk];
+        types[chunk][offset] = (byte) type.ordinal();
+        starts[chunk][offset] = start;
+        lengths[chunk][offset] = length;
+        values[chunk][offset] = value;
+        size++;
+    }
+
+    // Replaces the symbol IDs of the identifiers, identifier i gets the ID remap[i].
+    // Only for buffers that did not take chunks from another one
+    void remapSymbols(int[] remap) {
+        for (int i = 0; i < size; i++) {
+            if (type(i) == TokenType.IDENTIFIER) {
+                int chunk = chunkOf(i);
+                long[] chunkValues = values[chunk];
+                int offset = i - firstIndexes[chunk];
+                chunkValues[offset] = remap[(int) chunkValues[offset]];
+            }
+        }
+    }
+
+    // Appends tokens [from, to) of another buffer with their start offsets moved by shift. Chunks that lie entirely
+    // in the range are shared rather than copied, so the cost depends on the number of chunks, not of tokens.
+    // Both buffers have to use the same symbol table
+    void addRange(TokenBuffer tokens, int from, int to, int shift) {
+        for (int chunk = tokens.chunkOf(from); from < to; chunk++) {
+            int end = Math.min(to, tokens.chunkEnd(chunk));
+            if (from == tokens.firstIndexes[chunk] && end == tokens.chunkEnd(chunk)) {
+                shareChunk(tokens, chunk, shift);
+            } else {
+                int total = Math.addExact(size, end - from);
+                for (int next = chunkLimit(); next < total; next += CHUNK_SIZE) {
+                    allocateChunk(next);
+                }
+                tokens.copyTo(from, end, this, size, shift);
+                size = total;
+            }
+            from = end;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    CharSequence getSource() {
+        return source;
+    }
+
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    TokenType type(int index) {
+        int chunk = chunkOf(index);
+        return TYPES[types[chunk][index - firstIndexes[chunk]]];
+    }
+
+    int start(int index) {
+        int chunk = chunkOf(index);
+        return bases[chunk] + starts[chunk][index - firstIndexes[chunk]];
+    }
+
+    int length(int index) {
+        int chunk = chunkOf(index);
+        return lengths[chunk][index - firstIndexes[chunk]];
+    }
+
+    long value(int index) {
+        int chunk = chunkOf(index);
+        return values[chunk][index - firstIndexes[chunk]];
+    }
+
+    // Symbol ID of an identifier token
+    int symbol(int index) {
+        return (int) value(index);
+    }
+
+    String text(int index) {
+        int start = start(index);
+        return source.subSequence(start, start + length(index)).toString();
+    }
+
+    // Compares the text of a token without copying it
+    boolean textEquals(int index, String text) {
+        int length = length(index);
+        if (text.length() != length) {
+            return false;
+        }
+        int start = start(index);
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Creates a token object, for the few tokens that have to outlive the buffer walk
+    Token get(int index) {
+        TokenType type = type(index);
+        int symbol = type == TokenType.IDENTIFIER ? symbol(index) : -1;
+        long number = type == TokenType.INTEGER ? value(index) : 0;
+        return new Token(type, source, start(index), length(index), symbol, number);
+    }
+
+    List<Token> toList() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tokens.add(get(i));
+        }
+        return tokens;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    // Sequential reader over the buffer. Reading past the last token behaves like an EOF token
+    class Cursor {
+        private int position;
+
+        int position() {
+            return position;
+        }
+
+        void advance() {
+            position++;
+        }
+
+        TokenType type() {
+            return type(0);
+        }
+
+        // Type of the token the given number of tokens ahead of the current one
+        TokenType type(int ahead) {
+            int index = position + ahead;
+            return index < size ? TokenBuffer.this.type(index) : TokenType.EOF;
+        }
+
+        boolean textEquals(String text) {
+            return textEquals(0, text);
+        }
+
+        boolean textEquals(int ahead, String text) {
+            int index = position + ahead;
+            return index < size ? TokenBuffer.this.textEquals(index, text) : text.isEmpty();
+        }
+
+        Token token() {
+            return position < size ? get(position) : new Token(TokenType.EOF, source, source.length(), 0);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package src.Lab6;
 
-import java.util.List;
-
 
 abstract class ASTNode {
     // Abstract class for all AST nodes
@@ -31,21 +29,25 @@ class UnaryOperatorNode extends ASTNode {
     }
 }
 
-// Represents numbers in the AST
+// Represents numbers in the AST, value is the number the lexer decoded from the literal
 class NumberNode extends ASTNode {
     Token token;
+    long value;
 
     NumberNode(Token token) {
         this.token = token;
+        this.value = token.number;
     }
 }
 
-// Represents variables in the AST
+// Represents variables in the AST, symbol is the variable's ID in the lexer's symbol table
 class VariableNode extends ASTNode {
     Token token;
+    int symbol;
 
     VariableNode(Token token) {
         this.token = token;
+        this.symbol = token.symbol;
     }
 }
 
@@ -61,27 +63,26 @@ class AssignmentNode extends ASTNode {
 }
 
 
+// Reads the token buffer through a cursor, token objects are only created for tokens kept in the AST
 class Parser {
-    List<Token> tokens;
-    int currentPosition = 0;
+    TokenBuffer.Cursor tokens;
+    // Names of the variables, indexed by VariableNode.symbol
+    SymbolTable symbols;
 
-    Parser(List<Token> tokens) {
-        this.tokens = tokens;
+    Parser(TokenBuffer tokens) {
+        this.tokens = tokens.cursor();
+        this.symbols = tokens.getSymbols();
     }
 
     Token currentToken() {
-        // Check if the current position is within the bounds of the list
-        if (currentPosition < tokens.size()) {
-            // Return the token at the current position
-            return tokens.get(currentPosition);
-        }
-        return new Token(TokenType.EOF, "");
+        // Past the last token the cursor returns an EOF token
+        return tokens.token();
     }
 
     void check(TokenType type) {
         // Check if the current token's type matches the specified type
-        if (currentToken().type == type) {
-            currentPosition++;
+        if (tokens.type() == type) {
+            tokens.advance();
         } else {
             throw new RuntimeException("Unexpected token: " + currentToken() + ", expected: " + type);
         }
@@ -91,7 +92,7 @@ class Parser {
     ASTNode expression() {
         // Start with a term and look for add/subtract operators
         ASTNode result = term();
-        while (currentToken().type == TokenType.OPERATOR && (currentToken().value.equals("+") || currentToken().value.equals("-"))) {
+        while (tokens.type() == TokenType.OPERATOR && (tokens.textEquals("+") || tokens.textEquals("-"))) {
             // Get the operator token
             Token op = currentToken();
             // Check the operator token
@@ -106,7 +107,7 @@ class Parser {
     ASTNode term() {
         // Start with a factor and look for multiply/divide operators
         ASTNode result = factor();
-        while (currentToken().type == TokenType.OPERATOR && (currentToken().value.equals("*") || currentToken().value.equals("/"))) {
+        while (tokens.type() == TokenType.OPERATOR && (tokens.textEquals("*") || tokens.textEquals("/"))) {
             // Get the operator token
             Token op = currentToken();
             // Check the operator token
@@ -119,16 +120,16 @@ class Parser {
 
     // Method to parse a factor
     ASTNode factor() {
-        // Get the current token
-        Token token = currentToken();
-        // Check the type of the token
-        if (token.type == TokenType.INTEGER) {
+        // Check the type of the current token
+        if (tokens.type() == TokenType.INTEGER) {
+            NumberNode node = new NumberNode(currentToken());
             check(TokenType.INTEGER);
-            return new NumberNode(token);
-        } else if (token.type == TokenType.IDENTIFIER) {
+            return node;
+        } else if (tokens.type() == TokenType.IDENTIFIER) {
+            VariableNode node = new VariableNode(currentToken());
             check(TokenType.IDENTIFIER);
-            return new VariableNode(token);
-        } else if (token.type == TokenType.OPERATOR && token.value.equals("(")) {
+            return node;
+        } else if (tokens.type() == TokenType.OPERATOR && tokens.textEquals("(")) {
             // If it's an opening parenthesis, consume the token
             check(TokenType.OPERATOR); // Eat '('
             // Parse the expression within the parentheses
@@ -138,7 +139,7 @@ class Parser {
             // Return the expression within the parentheses
             return node;
         }
-        throw new RuntimeException("Unexpected token: " + token);
+        throw new RuntimeException("Unexpected token: " + currentToken());
     }
 
     // Method to parse an assignment expression
@@ -158,7 +159,7 @@ class Parser {
     // Method to parse the input and construct the AST
     ASTNode parse() {
         // Check if the input represents an assignment expression, if it is parse it, if not parse it as regular expression
-        if (currentToken().type == TokenType.IDENTIFIER && tokens.get(currentPosition + 1).value.equals("=")) {
+        if (tokens.type() == TokenType.IDENTIFIER && tokens.textEquals(1, "=")) {
             return assignment();
         } else {
             return expression();
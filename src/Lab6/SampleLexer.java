@@ -1,6 +1,5 @@
 package src.Lab6;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
@@ -8,128 +7,259 @@ enum TokenType {
     INTEGER, OPERATOR, PUNCTUATION, WHITESPACE, SEPARATORS, IDENTIFIER, EOF
 }
 
+// A token is a view of its characters in the lexer input, the text is only copied out when asked for.
+// Identifiers also carry their ID in the lexer's symbol table, other tokens have symbol -1.
+// Integer literals carry their decoded value in number, it is 0 for other tokens
 class Token {
-    TokenType type;
-    String value;
+    final TokenType type;
+    final int start;
+    final int length;
+    final int symbol;
+    final long number;
+    private final CharSequence source;
+    private String value;
 
-    Token(TokenType type, String value) {
+    Token(TokenType type, CharSequence source, int start, int length) {
+        this(type, source, start, length, -1);
+    }
+
+    Token(TokenType type, CharSequence source, int start, int length, int symbol) {
+        this(type, source, start, length, symbol, 0);
+    }
+
+    Token(TokenType type, CharSequence source, int start, int length, int symbol, long number) {
         this.type = type;
-        this.value = value;
+        this.source = source;
+        this.start = start;
+        this.length = length;
+        this.symbol = symbol;
+        this.number = number;
+    }
+
+    Token(TokenType type, String value) {
+        this(type, value, 0, value.length());
+    }
+
+    String getValue() {
+        if (value == null) {
+            value = source.subSequence(start, start + length).toString();
+        }
+        return value;
+    }
+
+    // Compares the token text without copying it
+    boolean textEquals(String text) {
+        if (text.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     // Overrides the default toString method to print token in a readable format
     @Override
     public String toString() {
-        return type + "('" + value + "')";
+        return type + "('" + getValue() + "')";
     }
 }
 
 // Lexer class responsible for converting a string of characters into a list of tokens
 class Lexer {
-    private final String input;
-    private int pos = 0;
+    // Character classes, the class of an ASCII character picks its token rule with a single table lookup
+    static final byte INVALID = 0;
+    static final byte SPACE = 1;
+    static final byte DIGIT = 2;
+    static final byte LETTER = 3;
+    static final byte OPERATOR = 4;
+    static final byte PUNCTUATION = 5;
+    static final byte SEPARATOR = 6;
+    private static final byte[] ASCII_CLASSES = new byte[128];
+    // Largest value a decimal literal can have before its last digit without overflowing a long
+    private static final long DECIMAL_LIMIT = Long.MAX_VALUE / 10;
+
+    static {
+        for (char c = 0; c < ASCII_CLASSES.length; c++) {
+            ASCII_CLASSES[c] = unicodeClassOf(c);
+        }
+        for (char c : "+-*/%=><".toCharArray()) {
+            ASCII_CLASSES[c] = OPERATOR;
+        }
+        for (char c : ".,?!:;".toCharArray()) {
+            ASCII_CLASSES[c] = PUNCTUATION;
+        }
+        for (char c : ")(}{][\"'".toCharArray()) {
+            ASCII_CLASSES[c] = SEPARATOR;
+        }
+        // The end of input marker never starts or continues a token
+        ASCII_CLASSES['\0'] = INVALID;
+    }
+
+    private final CharSequence input;
+    private final int end;
+    private final SymbolTable symbols;
+    private int pos;
+    private int tokenStart;
+    // Value of the last token: the symbol ID of an identifier or the value of an integer literal
+    private long value;
     private char currentChar;
 
-    // Constructor initializes the lexer with input and sets the first character
-    Lexer(String input) {
-        this.input = input + '\0';
-        currentChar = input.charAt(pos);
+    // Constructor initializes the lexer with input and sets the first character.
+    // The input is not copied, tokens refer to it by offset
+    Lexer(CharSequence input) {
+        this.input = input;
+        symbols = new SymbolTable();
+        end = input.length();
+        currentChar = end > 0 ? input.charAt(pos) : '\0';
     }
 
     // Advances the position in the input and updates the current character
     void advance() {
         pos++;
-        if (pos >= input.length()) {
+        if (pos >= end) {
             currentChar = '\0'; // End of file
         } else {
             currentChar = input.charAt(pos);
         }
     }
 
+    static byte classOf(char c) {
+        return c < 128 ? ASCII_CLASSES[c] : unicodeClassOf(c);
+    }
+
+    // Slow path for characters outside ASCII, only letters, digits and whitespace are allowed there
+    private static byte unicodeClassOf(char c) {
+        if (Character.isWhitespace(c)) {
+            return SPACE;
+        }
+        if (Character.isDigit(c)) {
+            return DIGIT;
+        }
+        return Character.isLetter(c) ? LETTER : INVALID;
+    }
+
     void skipWhitespace() {
-        while (currentChar != '\0' && Character.isWhitespace(currentChar)) {
+        while (classOf(currentChar) == SPACE) {
             advance();
         }
     }
 
-    Token integer() {
-        StringBuilder result = new StringBuilder();
-        while (currentChar != '\0' && Character.isDigit(currentChar)) {
-            result.append(currentChar);
+    // The rule methods consume one token starting at the current position and return its type
+
+    // Decimal, or hexadecimal after 0x or 0X. The value is accumulated while the digits are scanned.
+    // Like in Java, a hexadecimal literal may use all 64 bits, so it can decode to a negative value
+    TokenType integer() {
+        long number = 0;
+        if (currentChar == '0' && pos + 2 < end && (input.charAt(pos + 1) | 0x20) == 'x' && hexDigit(input.charAt(pos + 2)) >= 0) {
+            advance();
             advance();
+            for (int digit = hexDigit(currentChar); digit >= 0; digit = hexDigit(currentChar)) {
+                if (number >>> 60 != 0) {
+                    throw outOfRange(tokenStart);
+                }
+                number = number << 4 | digit;
+                advance();
+            }
+        } else {
+            while (classOf(currentChar) == DIGIT) {
+                int digit = decimalDigit(currentChar);
+                if (number >= DECIMAL_LIMIT && (number > DECIMAL_LIMIT || digit > Long.MAX_VALUE % 10)) {
+                    throw outOfRange(tokenStart);
+                }
+                number = number * 10 + digit;
+                advance();
+            }
         }
-        return new Token(TokenType.INTEGER, result.toString());
+        value = number;
+        return TokenType.INTEGER;
+    }
+
+    // Value of an ASCII hexadecimal digit, -1 for any other character
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        char lower = (char) (c | 0x20);
+        return lower >= 'a' && lower <= 'f' ? lower - 'a' + 10 : -1;
+    }
+
+    // Value of a character of class DIGIT, which may be a non-ASCII decimal digit
+    private static int decimalDigit(char c) {
+        return c < 128 ? c - '0' : Character.digit(c, 10);
+    }
+
+    private static RuntimeException outOfRange(int offset) {
+        return new RuntimeException("Integer literal out of range at offset " + offset);
     }
 
-    Token identifier() {
-        StringBuilder result = new StringBuilder();
-        while (currentChar != '\0' && (Character.isLetterOrDigit(currentChar))) {
-            result.append(currentChar);
+    TokenType identifier() {
+        while (classOf(currentChar) == LETTER || classOf(currentChar) == DIGIT) {
             advance();
         }
-        return new Token(TokenType.IDENTIFIER, result.toString());
+        value = symbols.intern(input, tokenStart, pos - tokenStart);
+        return TokenType.IDENTIFIER;
     }
 
-    Token operator() {
-        Token token = new Token(TokenType.OPERATOR, Character.toString(currentChar));
+    TokenType operator() {
         advance();
-        return token;
+        return TokenType.OPERATOR;
     }
 
-    Token punctuation() {
-        Token token = new Token(TokenType.PUNCTUATION, Character.toString(currentChar));
+    TokenType punctuation() {
         advance();
-        return token;
+        return TokenType.PUNCTUATION;
     }
 
-    Token separators() {
-        Token token = new Token(TokenType.SEPARATORS, Character.toString(currentChar));
+    TokenType separators() {
         advance();
-        return token;
+        return TokenType.SEPARATORS;
     }
 
     // Tokenize the entire input string and returns a list of tokens
     List<Token> tokenize() {
-        List<Token> tokens = new ArrayList<>();
-
-        while (currentChar != '\0') {
-            // Handle different character types to tokenize the input.
-            if (Character.isWhitespace(currentChar)) {
-                skipWhitespace();
-                continue;
-            }
-
-            if (Character.isDigit(currentChar)) {
-                tokens.add(integer());
-                continue;
-            }
-
-            if (Character.isLetter(currentChar)) {
-                tokens.add(identifier());
-                continue;
-            }
-
-            if (currentChar == '+' || currentChar == '-' || currentChar == '*' || currentChar == '/' || currentChar == '%' || currentChar == '=' || currentChar == '>' || currentChar == '<') {
-                tokens.add(operator());
-                continue;
-            }
+        return tokenizeToBuffer().toList();
+    }
 
-            if (currentChar == '.' || currentChar == ',' || currentChar == '?' || currentChar == '!' || currentChar == ':' || currentChar == ';') {
-                tokens.add(punctuation());
-                continue;
-            }
+    // Tokenize the entire input into a primitive token buffer, without creating an object per token
+    TokenBuffer tokenizeToBuffer() {
+        TokenBuffer tokens = new TokenBuffer(input, symbols);
 
-            if (currentChar == ')' || currentChar == '(' || currentChar == '}' || currentChar == '{' || currentChar == ']' || currentChar == '[' || currentChar == '"' || currentChar == '\'') {
-                tokens.add(separators());
-                continue;
+        while (pos < end) {
+            tokenStart = pos;
+            value = 0;
+            TokenType type;
+            // Handle different character types to tokenize the input.
+            switch (classOf(currentChar)) {
+                case SPACE:
+                    skipWhitespace();
+                    continue;
+                case DIGIT:
+                    type = integer();
+                    break;
+                case LETTER:
+                    type = identifier();
+                    break;
+                case OPERATOR:
+                    type = operator();
+                    break;
+                case PUNCTUATION:
+                    type = punctuation();
+                    break;
+                case SEPARATOR:
+                    type = separators();
+                    break;
+                default:
+                    // Handle unexpected characters and throw an exception
+                    throw new RuntimeException("Unexpected character: " + currentChar);
             }
-
-            // Handle unexpected characters and throw an exception
-            throw new RuntimeException("Unexpected character: " + currentChar);
+            tokens.add(type, tokenStart, pos - tokenStart, value);
         }
 
         // Add an EOF token at the end of the token list
-        tokens.add(new Token(TokenType.EOF, ""));
+        tokens.add(TokenType.EOF, end, 0);
         return tokens;
     }
 }
@@ -0,0 +1,168 @@
+package src.Lab6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Tokens stored column-wise instead of one object per token: a type byte, start/length ints and a long value,
+// 17 bytes a token. The value of an identifier is its ID in the symbol table and the value of an integer literal
+// the number it spells.
+// Columns grow in fixed-size chunks, so appending never copies the tokens stored before
+class TokenBuffer {
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final CharSequence source;
+    private final SymbolTable symbols;
+    private byte[][] types = new byte[8][];
+    private int[][] starts = new int[8][];
+    private int[][] lengths = new int[8][];
+    private long[][] values = new long[8][];
+    private int size;
+
+    TokenBuffer(CharSequence source, SymbolTable symbols) {
+        this.source = source;
+        this.symbols = symbols;
+    }
+
+    private void allocateChunk(int chunk) {
+        if (chunk == types.length) {
+            types = Arrays.copyOf(types, chunk * 2);
+            starts = Arrays.copyOf(starts, chunk * 2);
+            lengths = Arrays.copyOf(lengths, chunk * 2);
+            values = Arrays.copyOf(values, chunk * 2);
+        }
+        types[chunk] = new byte[CHUNK_SIZE];
+        starts[chunk] = new int[CHUNK_SIZE];
+        lengths[chunk] = new int[CHUNK_SIZE];
+        values[chunk] = new long[CHUNK_SIZE];
+    }
+
+    void add(TokenType type, int start, int length) {
+        add(type, start, length, 0);
+    }
+
+    void add(TokenType type, int start, int length, long value) {
+        int chunk = size >>> CHUNK_BITS;
+        int offset = size & CHUNK_MASK;
+        if (offset == 0) {
+            allocateChunk(chunk);
+        }
+        types[chunk][offset] = (byte) type.ordinal();
+        starts[chunk][offset] = start;
+        lengths[chunk][offset] = length;
+        values[chunk][offset] = value;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    CharSequence getSource() {
+        return source;
+    }
+
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    TokenType type(int index) {
+        return TYPES[types[index >>> CHUNK_BITS][index & CHUNK_MASK]];
+    }
+
+    int start(int index) {
+        return starts[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    int length(int index) {
+        return lengths[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    long value(int index) {
+        return values[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    // Symbol ID of an identifier token
+    int symbol(int index) {
+        return (int) value(index);
+    }
+
+    String text(int index) {
+        int start = start(index);
+        return source.subSequence(start, start + length(index)).toString();
+    }
+
+    // Compares the text of a token without copying it
+    boolean textEquals(int index, String text) {
+        int length = length(index);
+        if (text.length() != length) {
+            return false;
+        }
+        int start = start(index);
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Creates a token object, for the few tokens that have to outlive the buffer walk
+    Token get(int index) {
+        TokenType type = type(index);
+        int symbol = type == TokenType.IDENTIFIER ? symbol(index) : -1;
+        long number = type == TokenType.INTEGER ? value(index) : 0;
+        return new Token(type, source, start(index), length(index), symbol, number);
+    }
+
+    List<Token> toList() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tokens.add(get(i));
+        }
+        return tokens;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    // Sequential reader over the buffer. Reading past the last token behaves like an EOF token
+    class Cursor {
+        private int position;
+
+        int position() {
+            return position;
+        }
+
+        void advance() {
+            position++;
+        }
+
+        TokenType type() {
+            return type(0);
+        }
+
+        // Type of the token the given number of tokens ahead of the current one
+        TokenType type(int ahead) {
+            int index = position + ahead;
+            return index < size ? TokenBuffer.this.type(index) : TokenType.EOF;
+        }
+
+        boolean textEquals(String text) {
+            return textEquals(0, text);
+        }
+
+        boolean textEquals(int ahead, String text) {
+            int index = position + ahead;
+            return index < size ? TokenBuffer.this.textEquals(index, text) : text.isEmpty();
+        }
+
+        Token token() {
+            return position < size ? get(position) : new Token(TokenType.EOF, source, source.length(), 0);
+        }
+    }
+}